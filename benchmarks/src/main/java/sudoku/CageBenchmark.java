@@ -0,0 +1,63 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+// Killer cage pipeline on a fixed solved grid: cage layout (one CagePartitioner
+// layout, and the full best-of-attempts call plus Cage lists), the per-cell cage
+// queries the board view makes (getCageId/getCageSum), and the cage palette
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CageBenchmark {
+    private PuzzleGenerator generator;
+    private CagePartitioner singleLayout;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        generator = new PuzzleGenerator(new Random(42));
+        generator.generateBoard(Mode.KILLER, Difficulty.EASY);
+        singleLayout = new CagePartitioner();
+        singleLayout.attempts = 1;
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public int partitionOnce() {
+        return singleLayout.partition(generator.solution, random);
+    }
+
+    @Benchmark
+    public int generateCages() {
+        generator.generateCages();
+        return generator.cageIndex.cageCount();
+    }
+
+    @Benchmark
+    public int cageQueries() {
+        // What the board view asks for every cell
+        CageIndex index = generator.cageIndex;
+        int total = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int cageId = index.cageOf(cell);
+            if (index.isAnchor(cell)) {
+                total += index.sum(cageId);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Object generateCageColors() {
+        return CagePalette.colorsFor(generator.cageIndex);
+    }
+}
@@ -0,0 +1,42 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+// generateBoard for every Mode/Difficulty pair, seeded so runs are comparable
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    @Param({"REGULAR", "KILLER"})
+    public String mode;
+
+    @Param({"EASY", "MEDIUM", "HARD", "EXTREME"})
+    public String difficulty;
+
+    private PuzzleGenerator generator;
+    private Mode gameMode;
+    private Difficulty gameDifficulty;
+
+    @Setup
+    public void setUp() {
+        generator = new PuzzleGenerator(new Random(42));
+        gameMode = Mode.valueOf(mode);
+        gameDifficulty = Difficulty.valueOf(difficulty);
+    }
+
+    @Benchmark
+    public int generateBoard() {
+        generator.generateBoard(gameMode, gameDifficulty);
+        return generator.board.get(0);
+    }
+}
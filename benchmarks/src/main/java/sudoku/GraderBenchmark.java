@@ -0,0 +1,46 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+// Grader throughput on generated puzzles of one band. Each operation grades
+// every puzzle of the corpus once.
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraderBenchmark {
+    private static final int CORPUS_SIZE = 64;
+
+    @Param({"EASY", "MEDIUM", "HARD", "EXTREME"})
+    public String band;
+
+    private final Grader grader = new Grader();
+    private Board[] puzzles;
+
+    @Setup
+    public void setUp() {
+        PuzzleGenerator generator = new PuzzleGenerator(new Random(42));
+        puzzles = new Board[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            puzzles[i] = generator.generate(Mode.REGULAR, Difficulty.valueOf(band)).board;
+        }
+    }
+
+    @Benchmark
+    public int grade() {
+        int score = 0;
+        for (Board puzzle : puzzles) {
+            score += grader.grade(puzzle).score;
+        }
+        return score;
+    }
+}
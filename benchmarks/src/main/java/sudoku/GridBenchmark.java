@@ -0,0 +1,46 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+// Solved grids per second from GridGenerator: next() as the generator runs it
+// (transforms with a new DFS seed every GRIDS_PER_SEED grids), and seed() for the
+// cost of one fresh search
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    @Param({"9", "16"})
+    public int size;
+
+    private GridGenerator grids;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        grids = new GridGenerator(size, new Random(42));
+        board = new Board(size);
+    }
+
+    @Benchmark
+    public int next() {
+        grids.next(board);
+        return board.get(0);
+    }
+
+    @Benchmark
+    public int seed() {
+        grids.reseed();
+        grids.next(board);
+        return board.get(0);
+    }
+}
@@ -0,0 +1,80 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// solveBoard on a fixed corpus, once per solver engine. Each operation solves
+// every puzzle of the chosen corpus from a fresh copy of its givens.
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    private static final String[] EASY = {
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000"
+    };
+    private static final String[] HARD = {
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+            "850002400720000009004000000000107002305000900040000000000080070017000000000036040",
+            "400000805030000000000700000020000060000080400000010000000603070500200000104000000"
+    };
+    // Takes the row-major backtracking solver tens of millions of placements
+    private static final String[] PATHOLOGICAL = {
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000"
+    };
+
+    @Param({"bitmask", "dlx", "backtracking"})
+    public String engine;
+
+    @Param({"easy", "hard", "pathological"})
+    public String corpus;
+
+    private SudokuSolver solver;
+    private int[][][] puzzles;
+
+    @Setup
+    public void setUp() {
+        switch (engine) {
+            case "dlx":
+                solver = new DlxSolver();
+                break;
+            case "backtracking":
+                solver = new BacktrackingSolver();
+                break;
+            default:
+                solver = new BitmaskSolver();
+                break;
+        }
+        String[] lines = corpus.equals("easy") ? EASY : corpus.equals("hard") ? HARD : PATHOLOGICAL;
+        puzzles = new int[lines.length][][];
+        for (int i = 0; i < lines.length; i++) {
+            puzzles[i] = new int[9][9];
+            for (int cell = 0; cell < 81; cell++) {
+                puzzles[i][cell / 9][cell % 9] = lines[i].charAt(cell) - '0';
+            }
+        }
+    }
+
+    @Benchmark
+    public int solveBoard() {
+        int solved = 0;
+        for (int[][] puzzle : puzzles) {
+            int[][] board = new int[9][];
+            for (int row = 0; row < 9; row++) {
+                board[row] = puzzle[row].clone();
+            }
+            if (solver.solve(board)) {
+                solved++;
+            }
+        }
+        return solved;
+    }
+}
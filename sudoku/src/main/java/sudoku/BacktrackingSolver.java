@@ -0,0 +1,106 @@
+package sudoku;
+
+// The original solver: first empty cell in row-major order, digits 1..9,
+// rescanning the row, column and box for every placement
+class BacktrackingSolver implements SudokuSolver {
+    private long nodeCount = 0;
+
+    @Override
+    public boolean solve(int[][] board) {
+        return solveBoard(board);
+    }
+
+    @Override
+    public int countSolutions(int[][] board, int limit) {
+        int[][] copy = new int[9][];
+        for (int row = 0; row < 9; row++) {
+            copy[row] = board[row].clone();
+        }
+        return countSolutions(copy, 0, limit);
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    private boolean solveBoard(int[][] board) {
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                if (board[row][column] == 0) {
+                    for (int numberToTry = 1; numberToTry <= 9; numberToTry++) {
+                        if (isValidPlacement(board, numberToTry, row, column)) {
+                            board[row][column] = numberToTry;
+                            nodeCount++;
+                            if (solveBoard(board)) {
+                                return true;
+                            } else {
+                                board[row][column] = 0;
+                            }
+                        }
+                    }
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Same walk as solveBoard, but keeps going after a solution until limit are found
+    private int countSolutions(int[][] board, int found, int limit) {
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                if (board[row][column] == 0) {
+                    for (int numberToTry = 1; numberToTry <= 9 && found < limit; numberToTry++) {
+                        if (isValidPlacement(board, numberToTry, row, column)) {
+                            board[row][column] = numberToTry;
+                            nodeCount++;
+                            found = countSolutions(board, found, limit);
+                            board[row][column] = 0;
+                        }
+                    }
+                    return found;
+                }
+            }
+        }
+        return found + 1;
+    }
+
+    static boolean isNumberInRow(int[][] board, int number, int row) {
+        for (int i = 0; i < 9; i++) {
+            if (board[row][i] == number) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNumberInColumn(int[][] board, int number, int column) {
+        for (int i = 0; i < 9; i++) {
+            if (board[i][column] == number) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNumberInBox(int[][] board, int number, int row, int column) {
+        int localBoxRow = row - row % 3;
+        int localBoxColumn = column - column % 3;
+
+        for (int i = localBoxRow; i < localBoxRow + 3; i++) {
+            for (int j = localBoxColumn; j < localBoxColumn + 3; j++) {
+                if (board[i][j] == number) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean isValidPlacement(int[][] board, int number, int row, int column) {
+        return !isNumberInRow(board, number, row) &&
+                !isNumberInColumn(board, number, column) &&
+                !isNumberInBox(board, number, row, column);
+    }
+}
@@ -0,0 +1,221 @@
+package sudoku;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Headless batch mode: generates a pack of puzzles on every core and streams them,
+// one Puzzle.toLine() per line and in index order, to a file or stdout.
+//
+//   java Sudoku --batch --mode killer --difficulty hard --count 10000 [--size 9] [--unrated] [--seed 42] [--threads 8] [--out pack.txt | --store pack.sdk]
+//
+// --store appends binary records to a PuzzleStore instead of writing text.
+// Puzzle i is generated from its own seed derived from (seed, i), so a seeded
+// run writes the same file no matter how many threads it uses. Regular 9x9 puzzles
+// are regenerated until the grader rates them in the requested band, unless --unrated.
+// A pack never repeats a puzzle up to symmetry: each puzzle's canonical fingerprint
+// (see Canonicalizer) is checked in index order and a duplicate is replaced by one
+// generated from the next seed derived for that index.
+class BatchGenerator {
+    private final int size;
+    private final Mode mode;
+    private final Difficulty difficulty;
+    private final int count;
+    private final long seed;
+    private final int threads;
+    boolean rated = true;
+    private final LongHashSet fingerprints;
+    private long duplicates = 0;
+
+    // Each worker thread keeps its own generator instead of sharing Sudoku's fields
+    private final ThreadLocal<PuzzleGenerator> generators = ThreadLocal.withInitial(PuzzleGenerator::new);
+    private final ThreadLocal<Canonicalizer> canonicalizers = ThreadLocal.withInitial(Canonicalizer::new);
+
+    // A generated puzzle on its way to the writer
+    private static final class Generated {
+        final Puzzle puzzle;
+        final Grader.Grade grade; // Null unless the generator rated it
+        final long fingerprint;
+
+        Generated(Puzzle puzzle, Grader.Grade grade, long fingerprint) {
+            this.puzzle = puzzle;
+            this.grade = grade;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    // Where finished puzzles go, in index order
+    private interface Sink {
+        void write(Generated generated) throws IOException;
+    }
+
+    BatchGenerator(int size, Mode mode, Difficulty difficulty, int count, long seed, int threads) {
+        this.size = size;
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.count = count;
+        this.seed = seed;
+        this.threads = threads;
+        this.fingerprints = new LongHashSet(count);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = Board.SIZE;
+        Mode mode = Mode.REGULAR;
+        Difficulty difficulty = Difficulty.EASY;
+        int count = 1000;
+        long seed = new Random().nextLong();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = null;
+        String store = null;
+        boolean rated = true;
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (args[i].equals("--unrated")) {
+                rated = false;
+                continue;
+            }
+            switch (args[i]) {
+                case "--mode":
+                    mode = Mode.valueOf(require(args[i], value).toUpperCase(Locale.ROOT));
+                    break;
+                case "--difficulty":
+                    difficulty = Difficulty.valueOf(require(args[i], value).toUpperCase(Locale.ROOT));
+                    break;
+                case "--size":
+                    size = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--count":
+                    count = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(require(args[i], value));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--out":
+                    out = require(args[i], value);
+                    break;
+                case "--store":
+                    store = require(args[i], value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+
+        if (size != Board.SIZE && mode == Mode.KILLER) {
+            throw new IllegalArgumentException("Killer puzzles are only available on 9x9 boards");
+        }
+        BatchGenerator batch = new BatchGenerator(size, mode, difficulty, count, seed, threads);
+        batch.rated = rated;
+        long start = System.nanoTime();
+        if (store != null) {
+            if (size != Board.SIZE) {
+                throw new IllegalArgumentException("Puzzle stores only hold 9x9 puzzles");
+            }
+            try (PuzzleStore.Writer writer = PuzzleStore.Writer.open(Paths.get(store))) {
+                batch.run(writer);
+            }
+        } else {
+            try (Writer writer = out == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                    : Files.newBufferedWriter(Paths.get(out), StandardCharsets.US_ASCII)) {
+                batch.run(writer);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Generated %d %dx%d %s/%s puzzles in %.2f s (%.0f/s) on %d threads, %d duplicates replaced%n",
+                count, size, size, mode, difficulty, seconds, count / seconds, threads, batch.duplicates);
+    }
+
+    // The value following option on the command line, or a usage error if there is none
+    static String require(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return value;
+    }
+
+    public void run(Writer out) throws IOException {
+        run(generated -> writeLine(out, generated.puzzle.toLine()));
+    }
+
+    public void run(PuzzleStore.Writer store) throws IOException {
+        run(generated -> {
+            if (generated.grade != null) {
+                store.add(generated.puzzle, generated.grade);
+            } else {
+                store.add(generated.puzzle);
+            }
+        });
+    }
+
+    private void run(Sink out) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Keep a bounded window of puzzles in flight and write them back in submission order
+            int window = threads * 64;
+            ArrayDeque<ForkJoinTask<Generated>> inFlight = new ArrayDeque<>(window);
+            long written = 0;
+            for (int i = 0; i < count; i++) {
+                long index = i;
+                inFlight.add(pool.submit(() -> generate(puzzleSeed(index))));
+                if (inFlight.size() >= window) {
+                    writeUnique(out, written++, inFlight.poll().join());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeUnique(out, written++, inFlight.poll().join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Generated generate(long puzzleSeed) {
+        PuzzleGenerator generator = generators.get();
+        generator.random.setSeed(puzzleSeed);
+        generator.rated = rated;
+        Puzzle puzzle = generator.generate(size, mode, difficulty);
+        Grader.Grade grade = rated && mode == Mode.REGULAR && size == Board.SIZE ? generator.grade : null;
+        return new Generated(puzzle, grade, canonicalizers.get().fingerprint(puzzle));
+    }
+
+    // Runs on the writing thread in index order, so replacements don't depend on threads.
+    // Replacement k of puzzle i uses the seed of index i + k * count, which no other
+    // puzzle of the pack uses.
+    private void writeUnique(Sink out, long index, Generated generated) throws IOException {
+        for (long attempt = 1; !fingerprints.add(generated.fingerprint); attempt++) {
+            duplicates++;
+            Metrics.DUPLICATES.increment();
+            generated = generate(puzzleSeed(index + attempt * count));
+        }
+        out.write(generated);
+    }
+
+    // SplitMix64 finalizer, so neighbouring indexes get unrelated seeds
+    private long puzzleSeed(long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void writeLine(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+}
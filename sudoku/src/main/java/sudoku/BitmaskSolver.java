@@ -0,0 +1,284 @@
+package sudoku;
+
+import java.util.Arrays;
+
+// Solver that keeps the used digits of every row, column and box as bitmasks,
+// one bit per digit, so it works for 9x9, 16x16 and 25x25 boards alike.
+// Naked and hidden singles are propagated before each branch, and the search
+// always branches on the empty cell with the fewest candidates (MRV).
+class BitmaskSolver implements SudokuSolver {
+    static final int ALL_DIGITS = 0x1FF;
+
+    // 9x9 lookup tables from a cell index (row * 9 + col) to its units, and the
+    // cell indexes of the 9 rows, 9 columns and 9 boxes
+    static final int[] ROW_OF = BoardGeometry.of(9).rowOf;
+    static final int[] COL_OF = BoardGeometry.of(9).colOf;
+    static final int[] BOX_OF = BoardGeometry.of(9).boxOf;
+    static final int[][] UNITS = BoardGeometry.of(9).units;
+
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+    private final int[][] units;
+
+    // One copy of the working state per search depth, so backtracking is just
+    // dropping back a level. Every level places at least one digit.
+    private final byte[][] cells;
+    private final int[][] rowUsed;
+    private final int[][] colUsed;
+    private final int[][] boxUsed;
+
+    private long nodeCount = 0;
+    // Branches one search may try before giving up; a search that runs out reports
+    // only the solutions found so far. Used to restart heavy-tailed fills of big boards.
+    // An interrupted thread gives up the same way, checked every 1024 branches.
+    long nodeLimit = Long.MAX_VALUE;
+    private long searchNodes;
+    private boolean hitNodeLimit;
+    private int solutionLimit;
+    private int solutionsFound;
+    private byte[] solutionOut;
+
+    BitmaskSolver() {
+        this(Board.SIZE);
+    }
+
+    BitmaskSolver(int size) {
+        BoardGeometry geometry = BoardGeometry.of(size);
+        this.size = size;
+        this.cellCount = geometry.cellCount;
+        this.allDigits = geometry.allDigits;
+        this.rowOf = geometry.rowOf;
+        this.colOf = geometry.colOf;
+        this.boxOf = geometry.boxOf;
+        this.units = geometry.units;
+        cells = new byte[cellCount + 1][cellCount];
+        rowUsed = new int[cellCount + 1][size];
+        colUsed = new int[cellCount + 1][size];
+        boxUsed = new int[cellCount + 1][size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public boolean solve(int[][] board) {
+        byte[] flat = new byte[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            flat[cell] = (byte) board[cell / size][cell % size];
+        }
+        if (search(flat, 1, flat) == 0) {
+            return false;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            board[cell / size][cell % size] = flat[cell];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] board, int limit) {
+        byte[] flat = new byte[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            flat[cell] = (byte) board[cell / size][cell % size];
+        }
+        return search(flat, limit, null);
+    }
+
+    @Override
+    public boolean solve(Board board) {
+        // On failure search never writes to the output, so the board is left as it was
+        return search(board.cells, 1, board.cells) == 1;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        return search(board.cells, limit, null);
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    // Whether the last search stopped early: it used up nodeLimit or was interrupted
+    boolean hitNodeLimit() {
+        return hitNodeLimit;
+    }
+
+    // Counts solutions of a flat board of this solver's size (0 = empty), stopping at limit.
+    // The first solution found is copied into solutionOut when it is not null.
+    int search(byte[] board, int limit, byte[] solutionOut) {
+        this.solutionLimit = limit;
+        this.solutionsFound = 0;
+        this.solutionOut = solutionOut;
+        this.searchNodes = 0;
+        this.hitNodeLimit = false;
+        if (load(board)) {
+            search(0);
+        }
+        this.solutionOut = null;
+        return solutionsFound;
+    }
+
+    // Copies the givens into depth 0; false if two givens already clash
+    private boolean load(byte[] board) {
+        byte[] grid = cells[0];
+        int[] rows = rowUsed[0];
+        int[] cols = colUsed[0];
+        int[] boxes = boxUsed[0];
+        Arrays.fill(rows, 0);
+        Arrays.fill(cols, 0);
+        Arrays.fill(boxes, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            int digit = board[cell];
+            grid[cell] = (byte) digit;
+            if (digit == 0) {
+                continue;
+            }
+            int bit = 1 << (digit - 1);
+            if (((rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]) & bit) != 0) {
+                return false;
+            }
+            rows[rowOf[cell]] |= bit;
+            cols[colOf[cell]] |= bit;
+            boxes[boxOf[cell]] |= bit;
+        }
+        return true;
+    }
+
+    // Returns true once the solution limit is reached, which unwinds the search
+    private boolean search(int depth) {
+        if (!propagate(depth)) {
+            return false;
+        }
+
+        byte[] grid = cells[depth];
+        int[] rows = rowUsed[depth];
+        int[] cols = colUsed[depth];
+        int[] boxes = boxUsed[depth];
+
+        // Pick the most constrained empty cell
+        int bestCell = -1;
+        int bestCandidates = 0;
+        int bestCount = size + 1;
+        for (int cell = 0; cell < cellCount && bestCount > 2; cell++) {
+            if (grid[cell] != 0) {
+                continue;
+            }
+            int candidates = allDigits & ~(rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                bestCell = cell;
+                bestCandidates = candidates;
+                bestCount = count;
+            }
+        }
+
+        if (bestCell == -1) {
+            // No empty cells left: this is a solution
+            solutionsFound++;
+            if (solutionsFound == 1 && solutionOut != null) {
+                System.arraycopy(grid, 0, solutionOut, 0, cellCount);
+            }
+            return solutionsFound >= solutionLimit;
+        }
+
+        int next = depth + 1;
+        while (bestCandidates != 0) {
+            int bit = bestCandidates & -bestCandidates;
+            bestCandidates ^= bit;
+            System.arraycopy(grid, 0, cells[next], 0, cellCount);
+            System.arraycopy(rows, 0, rowUsed[next], 0, size);
+            System.arraycopy(cols, 0, colUsed[next], 0, size);
+            System.arraycopy(boxes, 0, boxUsed[next], 0, size);
+            place(next, bestCell, bit);
+            nodeCount++;
+            if (++searchNodes > nodeLimit
+                    || (searchNodes & 0x3FF) == 0 && Thread.currentThread().isInterrupted()) {
+                hitNodeLimit = true;
+                return true;
+            }
+            if (search(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Fills naked and hidden singles until nothing changes; false on a contradiction
+    private boolean propagate(int depth) {
+        byte[] grid = cells[depth];
+        int[] rows = rowUsed[depth];
+        int[] cols = colUsed[depth];
+        int[] boxes = boxUsed[depth];
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Naked singles: a cell with only one candidate left
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (grid[cell] != 0) {
+                    continue;
+                }
+                int candidates = allDigits & ~(rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]);
+                if (candidates == 0) {
+                    return false;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    place(depth, cell, candidates);
+                    changed = true;
+                }
+            }
+
+            // Hidden singles: a digit that fits in only one cell of a unit
+            for (int[] unit : units) {
+                int once = 0;
+                int twice = 0;
+                int used = 0;
+                for (int cell : unit) {
+                    if (grid[cell] != 0) {
+                        used |= 1 << (grid[cell] - 1);
+                        continue;
+                    }
+                    int candidates = allDigits & ~(rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                if ((once | used) != allDigits) {
+                    return false; // Some digit has nowhere to go in this unit
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    int target = -1;
+                    for (int cell : unit) {
+                        if (grid[cell] == 0 && (~(rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]) & bit) != 0) {
+                            target = cell;
+                            break;
+                        }
+                    }
+                    if (target == -1) {
+                        return false; // An earlier single in this unit took the only spot
+                    }
+                    place(depth, target, bit);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void place(int depth, int cell, int bit) {
+        cells[depth][cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        rowUsed[depth][rowOf[cell]] |= bit;
+        colUsed[depth][colOf[cell]] |= bit;
+        boxUsed[depth][boxOf[cell]] |= bit;
+    }
+}
@@ -0,0 +1,164 @@
+package sudoku;
+
+import java.util.Arrays;
+
+// Compact board: one flat byte per cell, indexed row * size + col, 0 = empty.
+// The classic board is 9x9; 16x16 and 25x25 boards use the same layout.
+// Copies and comparisons are single array operations, and 9x9 boards can be packed
+// two cells per byte (41 bytes) when millions of them need to sit in memory.
+final class Board {
+    static final int SIZE = 9;
+    static final int CELLS = 81;
+    static final int PACKED_BYTES = (CELLS + 1) / 2;
+    static final int MAX_SIZE = 25;
+    static final int[] SUPPORTED_SIZES = {9, 16, 25};
+
+    // Digit symbols: 1-9, then A-P for 10-25 on the larger boards
+    private static final String SYMBOLS = "0123456789ABCDEFGHIJKLMNOP";
+
+    final int size;
+    final byte[] cells;
+
+    Board() {
+        this(SIZE);
+    }
+
+    Board(int size) {
+        boxSizeOf(size); // Validates the size
+        this.size = size;
+        this.cells = new byte[size * size];
+    }
+
+    private Board(int size, byte[] cells) {
+        this.size = size;
+        this.cells = cells;
+    }
+
+    static int boxSizeOf(int size) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        if (boxSize * boxSize != size || size < 4 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        return boxSize;
+    }
+
+    static char symbol(int value) {
+        return SYMBOLS.charAt(value);
+    }
+
+    // Value typed or written as c, or -1 if c isn't a digit symbol
+    static int valueOf(char c) {
+        return SYMBOLS.indexOf(Character.toUpperCase(c));
+    }
+
+    static Board fromGrid(int[][] grid) {
+        Board board = new Board(grid.length);
+        for (int cell = 0; cell < board.cells.length; cell++) {
+            board.cells[cell] = (byte) grid[cell / board.size][cell % board.size];
+        }
+        return board;
+    }
+
+    // Adapter for code that still works on int[row][col]
+    int[][] toGrid() {
+        int[][] grid = new int[size][size];
+        for (int cell = 0; cell < cells.length; cell++) {
+            grid[cell / size][cell % size] = cells[cell];
+        }
+        return grid;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int boxSize() {
+        return boxSizeOf(size);
+    }
+
+    int cellCount() {
+        return cells.length;
+    }
+
+    int get(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    int get(int cell) {
+        return cells[cell];
+    }
+
+    void set(int row, int col, int value) {
+        cells[row * size + col] = (byte) value;
+    }
+
+    void set(int cell, int value) {
+        cells[cell] = (byte) value;
+    }
+
+    void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    boolean isNumberInRow(int number, int row) {
+        for (int col = 0; col < size; col++) {
+            if (cells[row * size + col] == number) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Snapshot for backtracking, undo or handing a board to another thread
+    Board copy() {
+        return new Board(size, cells.clone());
+    }
+
+    void copyFrom(Board other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    // Writes a 9x9 board as 4-bit cells, two per byte, starting at dest[offset]
+    void writePacked(byte[] dest, int offset) {
+        for (int cell = 0; cell < CELLS; cell += 2) {
+            int high = cells[cell];
+            int low = cell + 1 < CELLS ? cells[cell + 1] : 0;
+            dest[offset + cell / 2] = (byte) (high << 4 | low);
+        }
+    }
+
+    void readPacked(byte[] src, int offset) {
+        for (int cell = 0; cell < CELLS; cell += 2) {
+            int packed = src[offset + cell / 2];
+            cells[cell] = (byte) ((packed >> 4) & 0xF);
+            if (cell + 1 < CELLS) {
+                cells[cell + 1] = (byte) (packed & 0xF);
+            }
+        }
+    }
+
+    static Board unpack(byte[] src, int offset) {
+        Board board = new Board();
+        board.readPacked(src, offset);
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Board && Arrays.equals(cells, ((Board) other).cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(cells.length);
+        for (byte digit : cells) {
+            text.append(symbol(digit));
+        }
+        return text.toString();
+    }
+}
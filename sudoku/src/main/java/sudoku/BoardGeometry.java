@@ -0,0 +1,61 @@
+package sudoku;
+
+// Cell-to-unit lookup tables for one board size (9, 16 or 25), built once and shared.
+// Cells are indexed row * size + col; units are the rows, then the columns, then the boxes.
+final class BoardGeometry {
+    private static final BoardGeometry[] CACHE = new BoardGeometry[Board.MAX_SIZE + 1];
+
+    final int size;
+    final int boxSize;
+    final int cellCount;
+    final int allDigits; // Bitmask with one bit per digit 1..size
+    final int[] rowOf;
+    final int[] colOf;
+    final int[] boxOf;
+    final int[][] units;
+    final int[][] peers; // Every other cell sharing a row, column or box, without repeats
+
+    private BoardGeometry(int size) {
+        this.size = size;
+        this.boxSize = Board.boxSizeOf(size);
+        this.cellCount = size * size;
+        this.allDigits = (1 << size) - 1;
+        rowOf = new int[cellCount];
+        colOf = new int[cellCount];
+        boxOf = new int[cellCount];
+        units = new int[3 * size][size];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+            rowOf[cell] = row;
+            colOf[cell] = col;
+            boxOf[cell] = box;
+            units[row][col] = cell;
+            units[size + col][row] = cell;
+            units[2 * size + box][(row % boxSize) * boxSize + col % boxSize] = cell;
+        }
+        peers = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int[] cellPeers = new int[3 * size - 2 * boxSize - 1];
+            int count = 0;
+            for (int other = 0; other < cellCount; other++) {
+                if (other != cell && sees(cell, other)) {
+                    cellPeers[count++] = other;
+                }
+            }
+            peers[cell] = cellPeers;
+        }
+    }
+
+    boolean sees(int cell, int other) {
+        return rowOf[cell] == rowOf[other] || colOf[cell] == colOf[other] || boxOf[cell] == boxOf[other];
+    }
+
+    static synchronized BoardGeometry of(int size) {
+        if (CACHE[size] == null) {
+            CACHE[size] = new BoardGeometry(size);
+        }
+        return CACHE[size];
+    }
+}
@@ -0,0 +1,362 @@
+package sudoku;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+// Single lightweight component that paints the whole board: cage colors, cage
+// outlines and sums, digits and grid lines. Fonts, strokes and label strings are
+// created once, cell geometry is only recomputed when the size changes, and
+// painting allocates nothing. Clicks select a cell and digit keys are passed to
+// the CellInputListener for the selected cell. Boards of any supported size are
+// drawn the same way; on 16x16 and 25x25 boards 10 and up are typed as A-P.
+// When pencil marks are on, empty cells show their candidates from a CandidateSource,
+// and cells a hint points at are tinted until the next move.
+class BoardView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    interface CellInputListener {
+        void cellEntered(int row, int col, int value);
+    }
+
+    interface CandidateSource {
+        int candidates(int cell); // Digit bits, digit 1 = bit 0
+    }
+
+    private static final Font GIVEN_FONT = new Font("Arial", Font.BOLD, 17);
+    private static final Font INPUT_FONT = new Font("Arial", Font.PLAIN, 16);
+    private static final Font MISTAKE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font SUM_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font PENCIL_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Color PENCIL = new Color(90, 90, 90);
+    private static final Stroke THIN = new BasicStroke(1);
+    private static final Stroke THICK = new BasicStroke(2);
+    private static final Stroke CAGE_OUTLINE = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+            10, new float[]{3, 3}, 0);
+    private static final Color SELECTED = new Color(0, 0, 0, 40);
+    private static final Color HINTED = new Color(255, 200, 0, 110);
+    private static final String[] DIGITS = new String[Board.MAX_SIZE + 1];
+    private static final int CAGE_INSET = 4;
+
+    static {
+        DIGITS[0] = "";
+        for (int value = 1; value <= Board.MAX_SIZE; value++) {
+            DIGITS[value] = String.valueOf(Board.symbol(value));
+        }
+    }
+
+    private final Board board;
+    private final int size;
+    private final int boxSize;
+    // Digit fonts scaled down for the smaller cells of big boards, derived once per view
+    private final Font givenFont;
+    private final Font inputFont;
+    private final Font mistakeFont;
+    private final Font pencilFont;
+    private final CageIndex cageIndex;
+    private final boolean killer;
+    private final CellInputListener listener;
+    private final Color[] cellColors;
+    private final String[] sumLabels; // Only set on cage anchors
+    private final boolean[] given;
+    private final boolean[] locked;
+    private final boolean[] mistake;
+    private final boolean[] hinted;
+    private boolean editable = true;
+    private int selected = -1;
+    private CandidateSource pencilMarks; // Source of the candidates shown, or null when hidden
+
+    // Geometry cache: x/y of every grid line, refreshed when the size changes
+    private final int[] lineX;
+    private final int[] lineY;
+    private int laidOutWidth = -1;
+    private int laidOutHeight = -1;
+
+    BoardView(Board board, CageIndex cageIndex, Color[] cageColors, Mode mode, CellInputListener listener) {
+        this.board = board;
+        this.size = board.size();
+        this.boxSize = board.boxSize();
+        this.cageIndex = cageIndex;
+        this.killer = mode == Mode.KILLER;
+        this.listener = listener;
+
+        float scale = Math.min(1f, (float) Board.SIZE / size * 1.5f);
+        givenFont = GIVEN_FONT.deriveFont(GIVEN_FONT.getSize2D() * scale);
+        inputFont = INPUT_FONT.deriveFont(INPUT_FONT.getSize2D() * scale);
+        mistakeFont = MISTAKE_FONT.deriveFont(MISTAKE_FONT.getSize2D() * scale);
+        pencilFont = PENCIL_FONT.deriveFont(PENCIL_FONT.getSize2D() * Math.min(1f, (float) Board.SIZE / size * 1.2f));
+
+        int cellCount = board.cellCount();
+        cellColors = new Color[cellCount];
+        sumLabels = new String[cellCount];
+        given = new boolean[cellCount];
+        locked = new boolean[cellCount];
+        mistake = new boolean[cellCount];
+        hinted = new boolean[cellCount];
+        lineX = new int[size + 1];
+        lineY = new int[size + 1];
+        for (int cell = 0; cell < cellCount; cell++) {
+            // Cages only exist on 9x9 Killer boards
+            int cageId = killer ? cageIndex.cageOf(cell) : -1;
+            cellColors[cell] = cageId != -1 ? cageColors[cageId] : Color.WHITE;
+            if (cageId != -1 && cageIndex.isAnchor(cell)) {
+                sumLabels[cell] = String.valueOf(cageIndex.sum(cageId));
+            }
+            given[cell] = board.get(cell) != 0;
+            locked[cell] = given[cell];
+        }
+
+        setOpaque(true);
+        setFocusable(true);
+        setPreferredSize(size == Board.SIZE ? new Dimension(630, 560) : new Dimension(size * 36, size * 32));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                select(cellAt(e.getX(), e.getY()));
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+    }
+
+    void setMistake(int row, int col, boolean isMistake) {
+        mistake[row * size + col] = isMistake;
+        repaintCell(row * size + col);
+    }
+
+    void lockCell(int row, int col) {
+        locked[row * size + col] = true;
+        repaintCell(row * size + col);
+    }
+
+    // Shows a cell the player filled in as it stands now, e.g. after undo, redo or a
+    // resume: never a given, and locked only while it holds a digit that wasn't a mistake
+    void showEntered(int row, int col, boolean isMistake) {
+        int cell = row * size + col;
+        given[cell] = false;
+        mistake[cell] = isMistake;
+        locked[cell] = board.get(cell) != 0 && !isMistake;
+        repaint(); // Pencil marks of the row, column and box may have changed too
+    }
+
+    // Shows the live candidates of every empty cell, or hides them with null
+    void setPencilMarks(CandidateSource candidates) {
+        pencilMarks = candidates;
+        repaint();
+    }
+
+    // Tints the cells a hint is about; no cells clears the tint
+    void highlight(int... cells) {
+        Arrays.fill(hinted, false);
+        for (int cell : cells) {
+            hinted[cell] = true;
+        }
+        if (cells.length == 1) {
+            select(cells[0]); // A cell to fill: typing goes straight into it
+        }
+        repaint();
+    }
+
+    // Turns off all input, e.g. when the game is over
+    void setEditable(boolean editable) {
+        this.editable = editable;
+        if (!editable) {
+            select(-1);
+        }
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (selected == -1) {
+            select(0);
+            return;
+        }
+        int row = selected / size;
+        int col = selected % size;
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_UP:
+                select(Math.max(0, row - 1) * size + col);
+                return;
+            case KeyEvent.VK_DOWN:
+                select(Math.min(size - 1, row + 1) * size + col);
+                return;
+            case KeyEvent.VK_LEFT:
+                select(row * size + Math.max(0, col - 1));
+                return;
+            case KeyEvent.VK_RIGHT:
+                select(row * size + Math.min(size - 1, col + 1));
+                return;
+            default:
+                break;
+        }
+        int value = Board.valueOf(e.getKeyChar());
+        if (editable && !locked[selected] && value >= 1 && value <= size) {
+            listener.cellEntered(row, col, value);
+            if (pencilMarks != null) {
+                repaint(); // Candidates of the whole row, column and box may have changed
+            } else {
+                repaintCell(selected);
+            }
+        }
+    }
+
+    private void select(int cell) {
+        if (cell == selected) {
+            return;
+        }
+        int previous = selected;
+        selected = editable ? cell : -1;
+        repaintCell(previous);
+        repaintCell(selected);
+    }
+
+    private int cellAt(int x, int y) {
+        layoutGrid();
+        for (int row = 0; row < size; row++) {
+            if (y >= lineY[row] && y < lineY[row + 1]) {
+                for (int col = 0; col < size; col++) {
+                    if (x >= lineX[col] && x < lineX[col + 1]) {
+                        return row * size + col;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void repaintCell(int cell) {
+        if (cell == -1 || laidOutWidth == -1) {
+            repaint();
+            return;
+        }
+        int row = cell / size;
+        int col = cell % size;
+        repaint(lineX[col], lineY[row], lineX[col + 1] - lineX[col] + 1, lineY[row + 1] - lineY[row] + 1);
+    }
+
+    private void layoutGrid() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width == laidOutWidth && height == laidOutHeight) {
+            return;
+        }
+        for (int i = 0; i <= size; i++) {
+            lineX[i] = i * (width - 1) / size;
+            lineY[i] = i * (height - 1) / size;
+        }
+        laidOutWidth = width;
+        laidOutHeight = height;
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        layoutGrid();
+        Graphics2D g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+
+        for (int cell = 0; cell < given.length; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int x = lineX[col];
+            int y = lineY[row];
+            int w = lineX[col + 1] - x;
+            int h = lineY[row + 1] - y;
+            if (clip != null && !clip.intersects(x, y, w, h)) {
+                continue;
+            }
+
+            g.setColor(cellColors[cell]);
+            g.fillRect(x, y, w, h);
+            if (hinted[cell]) {
+                g.setColor(HINTED);
+                g.fillRect(x, y, w, h);
+            }
+            if (cell == selected) {
+                g.setColor(SELECTED);
+                g.fillRect(x, y, w, h);
+            }
+
+            if (killer) {
+                paintCageOutline(g, cell, x, y, w, h);
+            }
+
+            if (sumLabels[cell] != null) {
+                g.setFont(SUM_FONT);
+                g.setColor(Color.BLACK);
+                g.drawString(sumLabels[cell], x + CAGE_INSET + 1, y + CAGE_INSET + g.getFontMetrics().getAscent());
+            }
+
+            int digit = board.get(cell);
+            if (digit == 0 && pencilMarks != null) {
+                paintCandidates(g, pencilMarks.candidates(cell), x, y, w, h);
+            }
+            if (digit != 0) {
+                Font font = given[cell] ? givenFont : mistake[cell] ? mistakeFont : inputFont;
+                g.setFont(font);
+                g.setColor(mistake[cell] ? Color.RED : Color.BLACK);
+                FontMetrics metrics = g.getFontMetrics();
+                g.drawString(DIGITS[digit], x + (w - metrics.stringWidth(DIGITS[digit])) / 2,
+                        y + (h - metrics.getHeight()) / 2 + metrics.getAscent());
+            }
+        }
+
+        // Grid lines, thicker around the boxes
+        g.setColor(Color.BLACK);
+        for (int i = 0; i <= size; i++) {
+            g.setStroke(i % boxSize == 0 ? THICK : THIN);
+            g.drawLine(lineX[i], lineY[0], lineX[i], lineY[size]);
+            g.drawLine(lineX[0], lineY[i], lineX[size], lineY[i]);
+        }
+        g.setStroke(THIN);
+    }
+
+    // Candidates in a small boxSize x boxSize grid inside the cell, 1 at the top left
+    private void paintCandidates(Graphics2D g, int candidates, int x, int y, int w, int h) {
+        g.setFont(pencilFont);
+        g.setColor(PENCIL);
+        FontMetrics metrics = g.getFontMetrics();
+        while (candidates != 0) {
+            int value = Integer.numberOfTrailingZeros(candidates) + 1;
+            candidates &= candidates - 1;
+            int slot = value - 1;
+            int slotX = x + (slot % boxSize) * w / boxSize;
+            int slotY = y + (slot / boxSize) * h / boxSize;
+            g.drawString(DIGITS[value], slotX + (w / boxSize - metrics.stringWidth(DIGITS[value])) / 2,
+                    slotY + (h / boxSize - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+    }
+
+    // Dashed line just inside each cell edge that borders a different cage
+    private void paintCageOutline(Graphics2D g, int cell, int x, int y, int w, int h) {
+        int cageId = cageIndex.cageOf(cell);
+        int row = cell / size;
+        int col = cell % size;
+        int left = x + CAGE_INSET;
+        int top = y + CAGE_INSET;
+        int right = x + w - CAGE_INSET;
+        int bottom = y + h - CAGE_INSET;
+        g.setStroke(CAGE_OUTLINE);
+        g.setColor(Color.DARK_GRAY);
+        if (row == 0 || cageIndex.cageOf(cell - size) != cageId) {
+            g.drawLine(left, top, right, top);
+        }
+        if (row == size - 1 || cageIndex.cageOf(cell + size) != cageId) {
+            g.drawLine(left, bottom, right, bottom);
+        }
+        if (col == 0 || cageIndex.cageOf(cell - 1) != cageId) {
+            g.drawLine(left, top, left, bottom);
+        }
+        if (col == size - 1 || cageIndex.cageOf(cell + 1) != cageId) {
+            g.drawLine(right, top, right, bottom);
+        }
+    }
+}
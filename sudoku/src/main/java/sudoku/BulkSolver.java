@@ -0,0 +1,223 @@
+package sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Streams a puzzle file (one puzzle per line, 81 characters, '0' or '.' for blanks)
+// through the bitmask solver on every core. The file is read through memory-mapped
+// windows and parsed byte by byte into a flat batch buffer, so no per-line Strings
+// are created. Each output line is the solution, or "unsolvable", "multiple" or
+// "invalid", in the same order as the input. With --grade each solution is followed
+// by the hardest technique the puzzle needs and its score (see Grader).
+//
+//   java Sudoku --solve puzzles.txt [--grade] [--threads 8] [--out solutions.txt]
+class BulkSolver {
+    private static final int BATCH = 16384;
+    private static final long WINDOW = 256L << 20; // Bytes mapped at a time
+
+    private static final byte SOLVED = 0;
+    private static final byte UNSOLVABLE = 1;
+    private static final byte MULTIPLE = 2;
+    private static final byte INVALID = 3;
+    private static final byte[][] STATUS_TEXT = {
+            null, "unsolvable".getBytes(), "multiple".getBytes(), "invalid".getBytes()
+    };
+
+    private static final byte[][] TECHNIQUE_TEXT = new byte[Grader.Technique.values().length][];
+
+    static {
+        for (Grader.Technique technique : Grader.Technique.values()) {
+            TECHNIQUE_TEXT[technique.ordinal()] = technique.name().getBytes();
+        }
+    }
+
+    private final ForkJoinPool pool;
+    // Solvers keep per-depth working arrays, so every worker thread gets its own
+    private final ThreadLocal<BitmaskSolver> solvers = ThreadLocal.withInitial(BitmaskSolver::new);
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[81]);
+    private final ThreadLocal<Grader> graders = ThreadLocal.withInitial(Grader::new);
+    private final boolean grade;
+
+    // Batch buffers: puzzle i occupies bytes [i * 81, i * 81 + 81)
+    private final byte[] puzzles = new byte[BATCH * 81];
+    private final byte[] solutions = new byte[BATCH * 81];
+    private final byte[] status = new byte[BATCH];
+    private final byte[] hardest = new byte[BATCH]; // Technique ordinals, with --grade
+    private final int[] scores = new int[BATCH];
+    private final byte[] digits = new byte[10]; // Digits of a score being written out
+    private int batchSize = 0;
+
+    private long solved = 0;
+    private long total = 0;
+
+    BulkSolver(int threads, boolean grade) {
+        pool = new ForkJoinPool(threads);
+        this.grade = grade;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String input = null;
+        String out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean grade = false;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    i++;
+                    break;
+                case "--out":
+                    out = BatchGenerator.require(args[i], value);
+                    i++;
+                    break;
+                case "--grade":
+                    grade = true;
+                    break;
+                default:
+                    input = args[i];
+                    break;
+            }
+        }
+        if (input == null) {
+            throw new IllegalArgumentException("Usage: --solve <puzzle file> [--grade] [--threads N] [--out file]");
+        }
+
+        BulkSolver bulk = new BulkSolver(threads, grade);
+        long start = System.nanoTime();
+        try (OutputStream stream = new BufferedOutputStream(
+                out == null ? System.out : new FileOutputStream(out), 1 << 16)) {
+            bulk.run(Paths.get(input), stream);
+        } finally {
+            bulk.pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Solved %d of %d puzzles in %.2f s (%.0f/s) on %d threads%n",
+                bulk.solved, bulk.total, seconds, bulk.total / seconds, threads);
+    }
+
+    public void run(Path input, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW, size - position);
+                boolean lastWindow = position + length == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        addLine(buffer, lineStart, i, out);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        addLine(buffer, lineStart, (int) length, out); // No trailing newline
+                    }
+                    position = size;
+                } else if (lineStart == 0) {
+                    throw new IOException("Line longer than " + WINDOW + " bytes at offset " + position);
+                } else {
+                    // Re-map from the start of the partial line
+                    position += lineStart;
+                }
+            }
+        }
+        flush(out);
+    }
+
+    private void addLine(MappedByteBuffer buffer, int start, int end, OutputStream out) throws IOException {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return; // Skip blank lines
+        }
+
+        int offset = batchSize * 81;
+        byte lineStatus = end - start == 81 ? SOLVED : INVALID;
+        for (int i = 0; i < 81 && lineStatus == SOLVED; i++) {
+            byte c = buffer.get(start + i);
+            if (c >= '1' && c <= '9') {
+                puzzles[offset + i] = (byte) (c - '0');
+            } else if (c == '0' || c == '.') {
+                puzzles[offset + i] = 0;
+            } else {
+                lineStatus = INVALID;
+            }
+        }
+        status[batchSize++] = lineStatus;
+        if (batchSize == BATCH) {
+            flush(out);
+        }
+    }
+
+    // Solves the buffered batch in parallel, then writes it out in input order
+    private void flush(OutputStream out) throws IOException {
+        int count = batchSize;
+        pool.submit(() -> IntStream.range(0, count).parallel().forEach(this::solve)).join();
+
+        for (int i = 0; i < count; i++) {
+            if (status[i] == SOLVED) {
+                byte[] line = scratch.get();
+                for (int cell = 0; cell < 81; cell++) {
+                    line[cell] = (byte) ('0' + solutions[i * 81 + cell]);
+                }
+                out.write(line, 0, 81);
+                if (grade) {
+                    out.write(' ');
+                    out.write(TECHNIQUE_TEXT[hardest[i]]);
+                    out.write(' ');
+                    writeNumber(out, scores[i]);
+                }
+                solved++;
+            } else {
+                out.write(STATUS_TEXT[status[i]]);
+            }
+            out.write('\n');
+        }
+        total += count;
+        batchSize = 0;
+    }
+
+    // Writes a non-negative number in decimal without going through a String
+    private void writeNumber(OutputStream out, int value) throws IOException {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        out.write(digits, start, digits.length - start);
+    }
+
+    private void solve(int index) {
+        if (status[index] == INVALID) {
+            return;
+        }
+        byte[] cells = scratch.get();
+        System.arraycopy(puzzles, index * 81, cells, 0, 81);
+        int found = solvers.get().search(cells, 2, cells);
+        if (found == 1) {
+            System.arraycopy(cells, 0, solutions, index * 81, 81);
+            if (grade) {
+                System.arraycopy(puzzles, index * 81, cells, 0, 81);
+                Grader.Grade result = graders.get().grade(cells);
+                hardest[index] = (byte) result.hardest.ordinal();
+                scores[index] = result.score;
+            }
+        } else {
+            status[index] = found == 0 ? UNSOLVABLE : MULTIPLE;
+        }
+    }
+}
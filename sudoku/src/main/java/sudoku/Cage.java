@@ -0,0 +1,16 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A Killer cage as the generator lays it out and the board draws it: its cells as
+// {row, col} pairs. CageIndex is the flat form the solvers and game state query.
+class Cage {
+    List<int[]> cells; // List of cells in this cage
+    Cage() {
+        cells = new ArrayList<>();
+    }
+    void addCell(int row, int col) {
+        cells.add(new int[]{row, col});
+    }
+}
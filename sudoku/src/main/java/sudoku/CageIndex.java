@@ -0,0 +1,173 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Lookup tables for Killer cages, built once per layout so every cage query is O(1):
+// cell -> cage id, the cage sum, its top-left (anchor) cell and its members as an 81-bit mask.
+// Immutable once built, so games and generator threads can share it.
+final class CageIndex {
+    static final CageIndex EMPTY = build(Collections.emptyList(), new Board());
+    static final int JOIN_BYTES = (2 * Board.CELLS + 7) / 8; // See writeJoins
+
+    private final int[] cageOf = new int[Board.CELLS]; // -1 when the cell has no cage
+    private final int[] sums;
+    private final int[] sizes;
+    private final int[] anchors;
+    private final boolean[] distinct; // False when the cage repeats a digit in the solution
+    // Member cells as a bitmask: bit i of low is cell i, bit i of high is cell 64 + i
+    private final long[] membersLow;
+    private final long[] membersHigh;
+
+    private CageIndex(int cageCount) {
+        sums = new int[cageCount];
+        sizes = new int[cageCount];
+        anchors = new int[cageCount];
+        distinct = new boolean[cageCount];
+        membersLow = new long[cageCount];
+        membersHigh = new long[cageCount];
+    }
+
+    static CageIndex build(List<Cage> cages, Board solution) {
+        CageIndex index = new CageIndex(cages.size());
+        Arrays.fill(index.cageOf, -1);
+        for (int id = 0; id < cages.size(); id++) {
+            int anchor = Integer.MAX_VALUE;
+            int digitsSeen = 0;
+            index.distinct[id] = true;
+            for (int[] position : cages.get(id).cells) {
+                int cell = position[0] * Board.SIZE + position[1];
+                int digitBit = 1 << solution.get(cell);
+                if ((digitsSeen & digitBit) != 0) {
+                    index.distinct[id] = false;
+                }
+                digitsSeen |= digitBit;
+                index.cageOf[cell] = id;
+                index.sums[id] += solution.get(cell);
+                index.sizes[id]++;
+                // Row-major order, so the smallest index is the top-most, left-most cell
+                anchor = Math.min(anchor, cell);
+                if (cell < 64) {
+                    index.membersLow[id] |= 1L << cell;
+                } else {
+                    index.membersHigh[id] |= 1L << (cell - 64);
+                }
+            }
+            index.anchors[id] = anchor;
+        }
+        return index;
+    }
+
+    int cageCount() {
+        return sums.length;
+    }
+
+    int cageOf(int cell) {
+        return cageOf[cell];
+    }
+
+    int sum(int cageId) {
+        return sums[cageId];
+    }
+
+    int size(int cageId) {
+        return sizes[cageId];
+    }
+
+    int anchor(int cageId) {
+        return anchors[cageId];
+    }
+
+    boolean isDistinct(int cageId) {
+        return distinct[cageId];
+    }
+
+    boolean isAnchor(int cell) {
+        int cageId = cageOf[cell];
+        return cageId != -1 && anchors[cageId] == cell;
+    }
+
+    boolean contains(int cageId, int cell) {
+        return cell < 64
+                ? (membersLow[cageId] & (1L << cell)) != 0
+                : (membersHigh[cageId] & (1L << (cell - 64))) != 0;
+    }
+
+    long membersLow(int cageId) {
+        return membersLow[cageId];
+    }
+
+    long membersHigh(int cageId) {
+        return membersHigh[cageId];
+    }
+
+    // The layout as two bits per cell, "same cage as the cell to the right" and "as the
+    // cell below", JOIN_BYTES in all. That is enough to rebuild connected cages, which
+    // is what generateCages makes; an empty index writes all zeros.
+    void writeJoins(byte[] dest, int offset) {
+        Arrays.fill(dest, offset, offset + JOIN_BYTES, (byte) 0);
+        if (cageCount() == 0) {
+            return;
+        }
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int cage = cageOf[cell];
+            if (cell % Board.SIZE + 1 < Board.SIZE && cageOf[cell + 1] == cage) {
+                dest[offset + (2 * cell >> 3)] |= (byte) (1 << (2 * cell & 7));
+            }
+            if (cell + Board.SIZE < Board.CELLS && cageOf[cell + Board.SIZE] == cage) {
+                dest[offset + (2 * cell + 1 >> 3)] |= (byte) (1 << (2 * cell + 1 & 7));
+            }
+        }
+    }
+
+    // Rebuilds the cages written by writeJoins, numbered in row-major order of their first cell
+    static List<Cage> cagesFromJoins(byte[] joins, int offset) {
+        int[] cageOf = new int[Board.CELLS];
+        Arrays.fill(cageOf, -1);
+        int[] stack = new int[Board.CELLS];
+        List<Cage> cages = new ArrayList<>();
+        for (int start = 0; start < Board.CELLS; start++) {
+            if (cageOf[start] != -1) {
+                continue;
+            }
+            Cage cage = new Cage();
+            int id = cages.size();
+            cages.add(cage);
+            int top = 0;
+            stack[top++] = start;
+            cageOf[start] = id;
+            while (top > 0) {
+                int cell = stack[--top];
+                int row = cell / Board.SIZE;
+                int col = cell % Board.SIZE;
+                cage.addCell(row, col);
+                // Neighbours in all four directions, through the bit stored on whichever cell owns the edge
+                if (col + 1 < Board.SIZE && joined(joins, offset, cell, 0) && cageOf[cell + 1] == -1) {
+                    cageOf[cell + 1] = id;
+                    stack[top++] = cell + 1;
+                }
+                if (col > 0 && joined(joins, offset, cell - 1, 0) && cageOf[cell - 1] == -1) {
+                    cageOf[cell - 1] = id;
+                    stack[top++] = cell - 1;
+                }
+                if (row + 1 < Board.SIZE && joined(joins, offset, cell, 1) && cageOf[cell + Board.SIZE] == -1) {
+                    cageOf[cell + Board.SIZE] = id;
+                    stack[top++] = cell + Board.SIZE;
+                }
+                if (row > 0 && joined(joins, offset, cell - Board.SIZE, 1) && cageOf[cell - Board.SIZE] == -1) {
+                    cageOf[cell - Board.SIZE] = id;
+                    stack[top++] = cell - Board.SIZE;
+                }
+            }
+        }
+        return cages;
+    }
+
+    // direction 0 = same cage as the cell to the right, 1 = as the cell below
+    private static boolean joined(byte[] joins, int offset, int cell, int direction) {
+        int bit = 2 * cell + direction;
+        return (joins[offset + (bit >> 3)] & (1 << (bit & 7))) != 0;
+    }
+}
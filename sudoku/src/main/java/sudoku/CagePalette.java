@@ -0,0 +1,107 @@
+package sudoku;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+// Colours Killer cages so that cages sharing an edge never share a colour. The cages
+// and the edges between them form a planar graph, coloured with DSatur: repeatedly
+// take the uncoloured cage whose neighbours already use the most colours (ties: most
+// neighbours, then lowest id) and give it the first palette colour none of them use.
+// Planar graphs rarely need more than 4-5 colours this way, well inside the palette.
+// The same layout always gets the same colours, and the Color objects are shared
+// constants, so nothing is drawn or allocated per colour.
+final class CagePalette {
+    // Light, clearly different hues that keep black digits and sums readable,
+    // roughly ordered so the first few are as far apart as possible
+    static final Color[] PALETTE = {
+            new Color(255, 205, 210), // Rose
+            new Color(200, 230, 201), // Mint
+            new Color(187, 222, 251), // Sky
+            new Color(255, 236, 179), // Butter
+            new Color(225, 190, 231), // Lilac
+            new Color(178, 235, 242), // Aqua
+            new Color(255, 204, 160), // Apricot
+            new Color(220, 237, 160), // Lime
+            new Color(197, 202, 233), // Periwinkle
+            new Color(248, 187, 232), // Pink
+            new Color(215, 204, 200), // Taupe
+            new Color(178, 223, 219), // Teal
+    };
+
+    private CagePalette() {
+    }
+
+    // Palette colour of every cage, indexed by cage id
+    static Color[] colorsFor(CageIndex cageIndex) {
+        int[] colorIndexes = colorIndexes(cageIndex);
+        Color[] colors = new Color[colorIndexes.length];
+        for (int cage = 0; cage < colors.length; cage++) {
+            colors[cage] = PALETTE[colorIndexes[cage]];
+        }
+        return colors;
+    }
+
+    // Index into PALETTE for every cage id
+    static int[] colorIndexes(CageIndex cageIndex) {
+        int cageCount = cageIndex.cageCount();
+        // Neighbouring cages as a bitset per cage: cages per layout are at most 81, two longs each
+        long[] neighbours = new long[2 * cageCount];
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int cage = cageIndex.cageOf(cell);
+            if (cell % Board.SIZE < Board.SIZE - 1) {
+                link(neighbours, cage, cageIndex.cageOf(cell + 1));
+            }
+            if (cell + Board.SIZE < Board.CELLS) {
+                link(neighbours, cage, cageIndex.cageOf(cell + Board.SIZE));
+            }
+        }
+
+        int[] colors = new int[cageCount];
+        int[] usedNearby = new int[cageCount]; // Palette indexes taken by coloured neighbours, as bits
+        Arrays.fill(colors, -1);
+        for (int step = 0; step < cageCount; step++) {
+            int cage = mostSaturated(colors, usedNearby, neighbours);
+            int free = ~usedNearby[cage] & ((1 << PALETTE.length) - 1);
+            // Every palette colour is next door only in a degenerate layout; reuse the first
+            // and accept one clash rather than fail
+            int color = free != 0 ? Integer.numberOfTrailingZeros(free) : 0;
+            colors[cage] = color;
+            for (int other = 0; other < cageCount; other++) {
+                if (isNeighbour(neighbours, cage, other)) {
+                    usedNearby[other] |= 1 << color;
+                }
+            }
+        }
+        return colors;
+    }
+
+    private static int mostSaturated(int[] colors, int[] usedNearby, long[] neighbours) {
+        int chosen = -1;
+        int chosenSaturation = -1;
+        int chosenDegree = -1;
+        for (int cage = 0; cage < colors.length; cage++) {
+            if (colors[cage] != -1) {
+                continue;
+            }
+            int saturation = Integer.bitCount(usedNearby[cage]);
+            int degree = Long.bitCount(neighbours[2 * cage]) + Long.bitCount(neighbours[2 * cage + 1]);
+            if (saturation > chosenSaturation || saturation == chosenSaturation && degree > chosenDegree) {
+                chosen = cage;
+                chosenSaturation = saturation;
+                chosenDegree = degree;
+            }
+        }
+        return chosen;
+    }
+
+    private static void link(long[] neighbours, int a, int b) {
+        if (a != b) {
+            neighbours[2 * a + (b >> 6)] |= 1L << b;
+            neighbours[2 * b + (a >> 6)] |= 1L << a;
+        }
+    }
+
+    private static boolean isNeighbour(long[] neighbours, int a, int b) {
+        return (neighbours[2 * a + (b >> 6)] & 1L << b) != 0;
+    }
+}
@@ -0,0 +1,273 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Splits a solved 9x9 grid into Killer cages. A cage starts on a random free cell,
+// draws a target size from sizeWeights and grows one orthogonal neighbour at a time.
+// With distinctDigits no cage repeats a digit of the solution. With
+// preferFewCombinations the next cell is the one that leaves the cage sum with the
+// fewest ways to write it as distinct digits (17 in two cells only as 8+9), which
+// pins digits down sooner and lets puzzles stay unique with fewer givens. Cells left
+// stranded as unwanted singletons join a neighbouring cage where the rules allow.
+// Each call builds `attempts` layouts and keeps the one whose cages have the fewest
+// combinations in total. Everything runs on reused int arrays; a layout takes about
+// 12 microseconds. Cages come out connected and numbered in row-major order of their
+// first cell, the order CageIndex join bits restore. Not thread-safe.
+final class CagePartitioner {
+    static final int MAX_CAGE = 9;
+
+    // Relative weight of each cage size, index = cells: mostly pairs and triples,
+    // a fair number of 4s and 5s, a few 6s and almost no singles
+    int[] sizeWeights = {0, 1, 30, 35, 22, 9, 3, 0, 0, 0};
+    boolean distinctDigits = true;
+    boolean preferFewCombinations = true;
+    int attempts = 16;
+
+    // COMBINATIONS[size][sum]: sets of distinct digits 1-9 with that size and sum
+    private static final int[][] COMBINATIONS = combinations();
+    // log2 of the above, the cost of a cage when comparing layouts
+    private static final float[][] COST = costs();
+
+    private final int[] cageOf = new int[Board.CELLS];
+    private final int[] best = new int[Board.CELLS];
+    private final int[] order = new int[Board.CELLS];
+    private final int[] members = new int[Board.CELLS];
+    private final int[] sizes = new int[Board.CELLS];
+    private final int[] sums = new int[Board.CELLS];
+    private final int[] digits = new int[Board.CELLS];
+    private final int[] renumber = new int[Board.CELLS];
+    private int bestCount;
+
+    // Lays out cages for the solution; returns how many, with cageOf(cell) giving each cell's cage
+    int partition(Board solution, Random random) {
+        float bestCost = Float.MAX_VALUE;
+        for (int attempt = 0; attempt < Math.max(1, attempts); attempt++) {
+            int count = build(solution.cells, random);
+            float cost = cost(count);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestCount = count;
+                System.arraycopy(cageOf, 0, best, 0, Board.CELLS);
+            }
+        }
+        return bestCount;
+    }
+
+    int cageOf(int cell) {
+        return best[cell];
+    }
+
+    // Ways to fill a cage of this size and sum with distinct digits
+    static int combinations(int size, int sum) {
+        return size <= MAX_CAGE && sum < COMBINATIONS[size].length ? COMBINATIONS[size][sum] : 0;
+    }
+
+    private int build(byte[] solution, Random random) {
+        Arrays.fill(cageOf, -1);
+        for (int i = 0; i < Board.CELLS; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        int maxSize = largestSize();
+        int count = 0;
+        for (int start : order) {
+            if (cageOf[start] != -1) {
+                continue;
+            }
+            int cage = count++;
+            int target = drawSize(random);
+            int members = 0;
+            cageOf[start] = cage;
+            this.members[members++] = start;
+            sums[cage] = solution[start];
+            digits[cage] = 1 << solution[start];
+            while (members < target) {
+                int next = pickNeighbour(solution, cage, members, random);
+                if (next == -1) {
+                    break;
+                }
+                cageOf[next] = cage;
+                this.members[members++] = next;
+                sums[cage] += solution[next];
+                digits[cage] |= 1 << solution[next];
+            }
+            sizes[cage] = members;
+        }
+        if (sizeWeights[1] == 0 || sizeWeights[1] * 10 < totalWeight()) {
+            mergeSingletons(solution, maxSize, random);
+        }
+        return renumber(solution, count);
+    }
+
+    // The frontier cell to add next, or -1 when the cage is boxed in
+    private int pickNeighbour(byte[] solution, int cage, int members, Random random) {
+        int chosen = -1;
+        int chosenCombinations = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < members; i++) {
+            int cell = this.members[i];
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbour(cell, direction);
+                if (next == -1 || cageOf[next] != -1) {
+                    continue;
+                }
+                int digit = solution[next];
+                if (distinctDigits && (digits[cage] & 1 << digit) != 0) {
+                    continue;
+                }
+                int combinations = preferFewCombinations ? combinations(members + 1, sums[cage] + digit) : 0;
+                if (combinations < chosenCombinations) {
+                    chosen = next;
+                    chosenCombinations = combinations;
+                    ties = 1;
+                } else if (combinations == chosenCombinations && random.nextInt(++ties) == 0) {
+                    chosen = next; // Uniform among equally good cells (a cell seen twice just counts double)
+                }
+            }
+        }
+        return chosen;
+    }
+
+    // Singletons that weren't wanted join the smallest neighbouring cage they can, so
+    // the size mix stays close to sizeWeights; ties go to the fewest combinations
+    private void mergeSingletons(byte[] solution, int maxSize, Random random) {
+        for (int cell : order) {
+            int cage = cageOf[cell];
+            if (sizes[cage] != 1) {
+                continue;
+            }
+            int digit = solution[cell];
+            int target = -1;
+            int targetRank = Integer.MAX_VALUE;
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbour(cell, direction);
+                if (next == -1) {
+                    continue;
+                }
+                int other = cageOf[next];
+                if (other == cage || sizes[other] >= maxSize
+                        || distinctDigits && (digits[other] & 1 << digit) != 0) {
+                    continue;
+                }
+                int rank = sizes[other] << 8 | combinations(sizes[other] + 1, sums[other] + digit);
+                if (rank < targetRank || rank == targetRank && random.nextBoolean()) {
+                    target = other;
+                    targetRank = rank;
+                }
+            }
+            if (target != -1) {
+                cageOf[cell] = target;
+                sizes[target]++;
+                sums[target] += digit;
+                digits[target] |= 1 << digit;
+                sizes[cage] = 0;
+            }
+        }
+    }
+
+    // Drops emptied cages and numbers the rest by their first cell in row-major order
+    private int renumber(byte[] solution, int count) {
+        Arrays.fill(renumber, 0, count, -1);
+        int next = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int cage = cageOf[cell];
+            if (renumber[cage] == -1) {
+                renumber[cage] = next++;
+            }
+        }
+        // Totals are rebuilt under the new ids rather than moved, as ids shuffle both ways
+        Arrays.fill(sizes, 0, next, 0);
+        Arrays.fill(sums, 0, next, 0);
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int cage = renumber[cageOf[cell]];
+            cageOf[cell] = cage;
+            sizes[cage]++;
+            sums[cage] += solution[cell];
+        }
+        return next;
+    }
+
+    private float cost(int count) {
+        float cost = 0;
+        for (int cage = 0; cage < count; cage++) {
+            cost += sizes[cage] <= MAX_CAGE && sums[cage] < COST[sizes[cage]].length
+                    ? COST[sizes[cage]][sums[cage]] : MAX_CAGE;
+        }
+        return cost;
+    }
+
+    private int drawSize(Random random) {
+        int pick = random.nextInt(totalWeight());
+        for (int size = 1; size < sizeWeights.length; size++) {
+            pick -= sizeWeights[size];
+            if (pick < 0) {
+                return size;
+            }
+        }
+        return 1;
+    }
+
+    private int totalWeight() {
+        int total = 0;
+        for (int size = 1; size < sizeWeights.length; size++) {
+            total += sizeWeights[size];
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("sizeWeights needs a positive weight for some size");
+        }
+        return total;
+    }
+
+    private int largestSize() {
+        for (int size = Math.min(MAX_CAGE, sizeWeights.length - 1); size > 1; size--) {
+            if (sizeWeights[size] > 0) {
+                return size;
+            }
+        }
+        return 1;
+    }
+
+    // Up, down, left, right; -1 off the board
+    private static int neighbour(int cell, int direction) {
+        int row = cell / Board.SIZE;
+        int col = cell % Board.SIZE;
+        switch (direction) {
+            case 0:
+                return row > 0 ? cell - Board.SIZE : -1;
+            case 1:
+                return row < Board.SIZE - 1 ? cell + Board.SIZE : -1;
+            case 2:
+                return col > 0 ? cell - 1 : -1;
+            default:
+                return col < Board.SIZE - 1 ? cell + 1 : -1;
+        }
+    }
+
+    private static int[][] combinations() {
+        int[][] table = new int[MAX_CAGE + 1][46];
+        for (int set = 0; set < 1 << 9; set++) {
+            int sum = 0;
+            for (int digit = 1; digit <= 9; digit++) {
+                if ((set & 1 << (digit - 1)) != 0) {
+                    sum += digit;
+                }
+            }
+            table[Integer.bitCount(set)][sum]++;
+        }
+        return table;
+    }
+
+    private static float[][] costs() {
+        float[][] costs = new float[MAX_CAGE + 1][46];
+        for (int size = 0; size <= MAX_CAGE; size++) {
+            for (int sum = 0; sum < 46; sum++) {
+                int ways = COMBINATIONS[size][sum];
+                // A repeated-digit cage has no distinct combination; count it as hard as they come
+                costs[size][sum] = ways == 0 ? MAX_CAGE : (float) (Math.log(ways) / Math.log(2));
+            }
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,269 @@
+package sudoku;
+
+import java.util.Arrays;
+
+// Canonical forms of 9x9 grids under the Sudoku symmetry group: transposition,
+// band and stack order, row order inside a band, column order inside a stack and
+// digit relabelling. The canonical form is the lexicographically smallest grid in
+// the orbit, digits relabelled in order of first appearance (0 stays blank).
+//
+// The search picks the output rows one at a time. A state is a transposition, a
+// full column permutation and the source rows chosen so far; after each row only
+// the states whose prefix equals the smallest one survive, so the 3.4 million
+// arrangements are never enumerated. Not thread-safe: use one instance per thread.
+final class Canonicalizer {
+    static final int SIZE = Board.SIZE;
+    static final int CELLS = Board.CELLS;
+
+    // Every column order that keeps stacks together: 6 stack orders x 6^3 orders inside them
+    private static final byte[][] COLUMN_ORDERS = columnOrders();
+    private static final int START_STATES = 2 * COLUMN_ORDERS.length;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+
+    // The grid and its transpose, so a state only needs to remember which one it reads
+    private final byte[][] sources = new byte[2][CELLS];
+
+    // Surviving states, double-buffered: source and column order packed into one int,
+    // the source rows picked so far and the digit labels handed out so far
+    private int[] orders = new int[START_STATES];
+    private byte[] rows = new byte[START_STATES * SIZE];
+    private byte[] labels = new byte[START_STATES * (SIZE + 1)];
+    private int[] nextOrders = new int[START_STATES];
+    private byte[] nextRows = new byte[START_STATES * SIZE];
+    private byte[] nextLabels = new byte[START_STATES * (SIZE + 1)];
+    private int states;
+
+    private final byte[] best = new byte[CELLS];
+    private final byte[] rowScratch = new byte[SIZE];
+    private final byte[] labelScratch = new byte[SIZE + 1];
+    private final byte[] keyScratch = new byte[2 * CELLS];
+    private final byte[] bestKey = new byte[2 * CELLS];
+    private final int[] cageLabels = new int[CELLS];
+
+    // Writes the canonical form of a 9x9 grid (0 = blank) into out
+    void canonicalize(byte[] grid, byte[] out) {
+        search(grid);
+        System.arraycopy(best, 0, out, 0, CELLS);
+    }
+
+    byte[] canonicalize(Board board) {
+        byte[] out = new byte[CELLS];
+        canonicalize(board.cells, out);
+        return out;
+    }
+
+    // 64-bit fingerprint shared by every puzzle in the same orbit. The givens are
+    // canonicalized; among the transformations that reach that form (usually one or a
+    // handful) the smallest image of the solution and, for Killer, the cage layout is
+    // taken, so two puzzles match exactly when one is a relabelled, permuted or
+    // transposed copy of the other. Other sizes only match their exact copies.
+    long fingerprint(Puzzle puzzle) {
+        if (puzzle.board.size() != SIZE) {
+            return mix(hash(FNV_OFFSET, puzzle.board.cells, puzzle.board.cellCount()));
+        }
+        search(puzzle.board.cells);
+        CageIndex cageIndex = puzzle.cageIndex;
+        boolean killer = cageIndex.cageCount() > 0;
+        int keyLength = killer ? 2 * CELLS : CELLS;
+        for (int state = 0; state < states; state++) {
+            imageKey(state, puzzle.solution.cells, killer ? cageIndex : null);
+            if (state == 0 || Arrays.compare(keyScratch, 0, keyLength, bestKey, 0, keyLength) < 0) {
+                System.arraycopy(keyScratch, 0, bestKey, 0, keyLength);
+            }
+        }
+        return mix(hash(hash(FNV_OFFSET, best, CELLS), bestKey, keyLength));
+    }
+
+    // The solution (relabelled consistently with the givens, then by first appearance)
+    // and, for Killer, which cage each cell is in (numbered by first appearance) once
+    // the state's transformation is applied
+    private void imageKey(int state, byte[] solution, CageIndex cageIndex) {
+        int order = orders[state];
+        byte[] columns = COLUMN_ORDERS[order >> 1];
+        boolean transposed = (order & 1) != 0;
+        System.arraycopy(labels, state * (SIZE + 1), labelScratch, 0, SIZE + 1);
+        int nextLabel = labelScratch[0] + 1;
+        if (cageIndex != null) {
+            Arrays.fill(cageLabels, 0, cageIndex.cageCount(), 0);
+        }
+        int nextCage = 1;
+        for (int row = 0; row < SIZE; row++) {
+            int sourceRow = rows[state * SIZE + row];
+            for (int col = 0; col < SIZE; col++) {
+                int sourceCol = columns[col];
+                int cell = transposed ? sourceCol * SIZE + sourceRow : sourceRow * SIZE + sourceCol;
+                int out = row * SIZE + col;
+                int digit = solution[cell];
+                if (labelScratch[digit] == 0) {
+                    labelScratch[digit] = (byte) nextLabel++;
+                }
+                keyScratch[out] = labelScratch[digit];
+                if (cageIndex != null) {
+                    int cage = cageIndex.cageOf(cell);
+                    if (cageLabels[cage] == 0) {
+                        cageLabels[cage] = nextCage++;
+                    }
+                    keyScratch[CELLS + out] = (byte) cageLabels[cage];
+                }
+            }
+        }
+    }
+
+    private void search(byte[] grid) {
+        for (int cell = 0; cell < CELLS; cell++) {
+            sources[0][cell] = grid[cell];
+            sources[1][(cell % SIZE) * SIZE + cell / SIZE] = grid[cell];
+        }
+        states = START_STATES;
+        for (int state = 0; state < START_STATES; state++) {
+            orders[state] = state;
+        }
+        Arrays.fill(labels, 0, START_STATES * (SIZE + 1), (byte) 0);
+
+        for (int depth = 0; depth < SIZE; depth++) {
+            int survivors = 0;
+            boolean haveBest = false;
+            for (int state = 0; state < states; state++) {
+                int order = orders[state];
+                byte[] source = sources[order & 1];
+                byte[] columns = COLUMN_ORDERS[order >> 1];
+                int firstInBand = depth - depth % 3;
+                for (int candidate = 0; candidate < SIZE; candidate++) {
+                    if (!allowed(state, depth, firstInBand, candidate)) {
+                        continue;
+                    }
+                    int compared = relabelRow(state, source, columns, candidate, depth, haveBest);
+                    if (compared > 0) {
+                        continue;
+                    }
+                    if (compared < 0) {
+                        survivors = 0;
+                        System.arraycopy(rowScratch, 0, best, depth * SIZE, SIZE);
+                        haveBest = true;
+                    }
+                    survivors = keep(survivors, state, depth, candidate);
+                }
+            }
+            swapBuffers();
+            states = survivors;
+        }
+    }
+
+    // Rows of a new band may come from any band not used yet, the others from the current band
+    private boolean allowed(int state, int depth, int firstInBand, int candidate) {
+        int base = state * SIZE;
+        if (depth == firstInBand) {
+            int band = candidate / 3;
+            for (int row = 0; row < depth; row += 3) {
+                if (rows[base + row] / 3 == band) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (candidate / 3 != rows[base + firstInBand] / 3) {
+            return false;
+        }
+        for (int row = firstInBand; row < depth; row++) {
+            if (rows[base + row] == candidate) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Relabels the candidate row into rowScratch/labelScratch and compares it with the
+    // best row so far: negative if smaller (or there is none yet), 0 if equal, positive if
+    // larger, stopping at the first difference
+    private int relabelRow(int state, byte[] source, byte[] columns, int candidate, int depth, boolean haveBest) {
+        System.arraycopy(labels, state * (SIZE + 1), labelScratch, 0, SIZE + 1);
+        int next = labelScratch[0] + 1; // Slot 0 holds the last label handed out
+        int rowStart = candidate * SIZE;
+        int bestStart = depth * SIZE;
+        boolean smaller = !haveBest;
+        for (int col = 0; col < SIZE; col++) {
+            int digit = source[rowStart + columns[col]];
+            int label = 0;
+            if (digit != 0) {
+                label = labelScratch[digit];
+                if (label == 0) {
+                    label = next++;
+                    labelScratch[digit] = (byte) label;
+                }
+            }
+            if (!smaller) {
+                int difference = label - best[bestStart + col];
+                if (difference > 0) {
+                    return 1;
+                }
+                smaller = difference < 0;
+            }
+            rowScratch[col] = (byte) label;
+        }
+        labelScratch[0] = (byte) (next - 1);
+        return smaller ? -1 : 0;
+    }
+
+    private int keep(int survivors, int state, int depth, int candidate) {
+        if (survivors == nextOrders.length) {
+            int capacity = survivors * 2;
+            nextOrders = Arrays.copyOf(nextOrders, capacity);
+            nextRows = Arrays.copyOf(nextRows, capacity * SIZE);
+            nextLabels = Arrays.copyOf(nextLabels, capacity * (SIZE + 1));
+        }
+        nextOrders[survivors] = orders[state];
+        System.arraycopy(rows, state * SIZE, nextRows, survivors * SIZE, depth);
+        nextRows[survivors * SIZE + depth] = (byte) candidate;
+        System.arraycopy(labelScratch, 0, nextLabels, survivors * (SIZE + 1), SIZE + 1);
+        return survivors + 1;
+    }
+
+    private void swapBuffers() {
+        int[] swapOrders = orders;
+        orders = nextOrders;
+        nextOrders = swapOrders;
+        byte[] swapRows = rows;
+        rows = nextRows;
+        nextRows = swapRows;
+        byte[] swapLabels = labels;
+        labels = nextLabels;
+        nextLabels = swapLabels;
+    }
+
+    private static byte[][] columnOrders() {
+        int[][] perms = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+        byte[][] orders = new byte[6 * 6 * 6 * 6][];
+        int index = 0;
+        for (int[] stacks : perms) {
+            for (int[] first : perms) {
+                for (int[] second : perms) {
+                    for (int[] third : perms) {
+                        int[][] inside = {first, second, third};
+                        byte[] order = new byte[SIZE];
+                        for (int stack = 0; stack < 3; stack++) {
+                            for (int col = 0; col < 3; col++) {
+                                order[stack * 3 + col] = (byte) (stacks[stack] * 3 + inside[stack][col]);
+                            }
+                        }
+                        orders[index++] = order;
+                    }
+                }
+            }
+        }
+        return orders;
+    }
+
+    private static long hash(long h, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            h = (h ^ bytes[i]) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer, so fingerprints use all 64 bits evenly
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
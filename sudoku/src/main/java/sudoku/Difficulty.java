@@ -0,0 +1,4 @@
+package sudoku;
+
+// Difficulty levels, easiest first; generation and rating go by the ordinal
+enum Difficulty { EASY, MEDIUM, HARD, EXTREME }
@@ -0,0 +1,212 @@
+package sudoku;
+
+// Dancing Links (Algorithm X) solver. The grid is modelled as an exact-cover
+// matrix of 729 candidate rows (cell, digit) against 324 constraints:
+// every cell filled once, and every digit once per row, column and box.
+// The links are plain int arrays built once per solver and restored after each call.
+class DlxSolver implements SudokuSolver {
+    private static final int COLUMNS = 324;
+    private static final int ROWS = 729;
+    private static final int ROOT = 0;
+
+    // Node 0 is the root, 1..324 are column headers, the rest are the 4 nodes of each candidate row
+    private final int[] left = new int[1 + COLUMNS + ROWS * 4];
+    private final int[] right = new int[left.length];
+    private final int[] up = new int[left.length];
+    private final int[] down = new int[left.length];
+    private final int[] column = new int[left.length];
+    private final int[] rowOf = new int[left.length];
+    private final int[] size = new int[1 + COLUMNS];
+    // First node of each candidate row, indexed by cell * 9 + digit - 1
+    private final int[] rowStart = new int[ROWS];
+
+    private final int[] partial = new int[81];
+    private final byte[] solutionCells = new byte[81];
+    private long nodeCount = 0;
+    private int solutionLimit;
+    private int solutionsFound;
+
+    DlxSolver() {
+        for (int col = 0; col <= COLUMNS; col++) {
+            left[col] = col - 1;
+            right[col] = col + 1;
+            up[col] = col;
+            down[col] = col;
+            column[col] = col;
+        }
+        left[ROOT] = COLUMNS;
+        right[COLUMNS] = ROOT;
+
+        int node = COLUMNS + 1;
+        for (int cell = 0; cell < 81; cell++) {
+            int row = cell / 9;
+            int col = cell % 9;
+            int box = (row / 3) * 3 + col / 3;
+            for (int digit = 0; digit < 9; digit++) {
+                int candidate = cell * 9 + digit;
+                int[] constraints = {
+                        1 + cell,
+                        1 + 81 + row * 9 + digit,
+                        1 + 162 + col * 9 + digit,
+                        1 + 243 + box * 9 + digit
+                };
+                rowStart[candidate] = node;
+                for (int i = 0; i < 4; i++) {
+                    int header = constraints[i];
+                    int current = node + i;
+                    column[current] = header;
+                    rowOf[current] = candidate;
+                    // Append at the bottom of the column
+                    up[current] = up[header];
+                    down[current] = header;
+                    down[up[header]] = current;
+                    up[header] = current;
+                    size[header]++;
+                    // Circular link within the candidate row
+                    left[current] = node + (i + 3) % 4;
+                    right[current] = node + (i + 1) % 4;
+                }
+                node += 4;
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(int[][] board) {
+        if (count(board, 1) == 0) {
+            return false;
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            board[cell / 9][cell % 9] = solutionCells[cell];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] board, int limit) {
+        return count(board, limit);
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    private int count(int[][] board, int limit) {
+        solutionLimit = limit;
+        solutionsFound = 0;
+
+        // Select the rows of the givens, remembering them so they can be released afterwards
+        int[] givens = new int[81];
+        int givenCount = 0;
+        boolean consistent = true;
+        for (int cell = 0; cell < 81 && consistent; cell++) {
+            int digit = board[cell / 9][cell % 9];
+            if (digit == 0) {
+                continue;
+            }
+            int start = rowStart[cell * 9 + digit - 1];
+            // A given whose constraint is already covered clashes with an earlier one
+            for (int i = 0; i < 4; i++) {
+                if (isCovered(column[start + i])) {
+                    consistent = false;
+                }
+            }
+            if (consistent) {
+                selectRow(start);
+                partial[givenCount] = start;
+                givens[givenCount++] = start;
+            }
+        }
+
+        if (consistent) {
+            search(givenCount);
+        }
+
+        for (int i = givenCount - 1; i >= 0; i--) {
+            releaseRow(givens[i]);
+        }
+        return solutionsFound;
+    }
+
+    // Returns true once the solution limit is reached
+    private boolean search(int depth) {
+        if (right[ROOT] == ROOT) {
+            solutionsFound++;
+            if (solutionsFound == 1) {
+                for (int i = 0; i < depth; i++) {
+                    int candidate = rowOf[partial[i]];
+                    solutionCells[candidate / 9] = (byte) (candidate % 9 + 1);
+                }
+            }
+            return solutionsFound >= solutionLimit;
+        }
+
+        // Branch on the constraint with the fewest remaining candidates
+        int chosen = right[ROOT];
+        for (int col = right[chosen]; col != ROOT; col = right[col]) {
+            if (size[col] < size[chosen]) {
+                chosen = col;
+            }
+        }
+        if (size[chosen] == 0) {
+            return false;
+        }
+
+        boolean done = false;
+        cover(chosen);
+        for (int node = down[chosen]; node != chosen && !done; node = down[node]) {
+            partial[depth] = node;
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+            }
+            nodeCount++;
+            done = search(depth + 1);
+            for (int j = left[node]; j != node; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(chosen);
+        return done;
+    }
+
+    private boolean isCovered(int header) {
+        return right[left[header]] != header;
+    }
+
+    private void selectRow(int start) {
+        for (int i = 0; i < 4; i++) {
+            cover(column[start + i]);
+        }
+    }
+
+    private void releaseRow(int start) {
+        for (int i = 3; i >= 0; i--) {
+            uncover(column[start + i]);
+        }
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+}
@@ -0,0 +1,267 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// One game being played: the puzzle, its live GameState, the mistakes made so far
+// and every move as an undo journal. A move is two ints in one growing int[]: the
+// packed change (cell, old and new value, whether each was a mistake) and the
+// milliseconds since the game started. Undo and redo move a cursor through the
+// journal and apply one change, so both are O(1) and nothing is allocated per move.
+// A new move after an undo drops the moves that could have been redone.
+//
+// save() writes a snapshot of the board plus the journal in one small file, and
+// read() restores it with one read; the journal comes back too, so undo keeps working
+// after a resume. Not thread-safe: drive it from the event thread.
+final class GameSession {
+    private static final int MAGIC = 0x53444B53; // "SDKS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 30;
+
+    // Packed move: cell in bits 0-9, old value 10-14, new value 15-19, then the mistake flags
+    private static final int CELL_BITS = 10;
+    private static final int VALUE_BITS = 5;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    private static final int OLD_SHIFT = CELL_BITS;
+    private static final int NEW_SHIFT = CELL_BITS + VALUE_BITS;
+    private static final int OLD_MISTAKE = 1 << (CELL_BITS + 2 * VALUE_BITS);
+    private static final int NEW_MISTAKE = OLD_MISTAKE << 1;
+
+    final Mode mode;
+    final Difficulty difficulty;
+    final Board givens;
+    final Board board; // Updated in place as moves are played, undone and redone
+    final Board solution;
+    final CageIndex cageIndex;
+    final GameState state;
+    private final boolean[] mistake; // Whether each cell's current value was entered as a mistake
+    private int mistakes;
+
+    private int[] journal = new int[64];
+    private int length; // Moves recorded
+    private int cursor; // Moves applied; the rest can be redone
+    private final long startedAt = System.currentTimeMillis();
+    private final long elapsedBefore; // Play time of earlier runs of a resumed game
+
+    // Starts a session on board as it is now, so every filled cell counts as a given
+    GameSession(Mode mode, Difficulty difficulty, Board board, Board solution, CageIndex cageIndex) {
+        this(mode, difficulty, board.copy(), board, solution, cageIndex, 0);
+    }
+
+    private GameSession(Mode mode, Difficulty difficulty, Board givens, Board board, Board solution,
+                        CageIndex cageIndex, long elapsedBefore) {
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.givens = givens;
+        this.board = board;
+        this.solution = solution;
+        this.cageIndex = cageIndex;
+        this.state = new GameState(board, cageIndex);
+        this.mistake = new boolean[board.cellCount()];
+        this.elapsedBefore = elapsedBefore;
+    }
+
+    // Enters value in the cell and records it; mistakes also count towards the game's total
+    void play(int cell, int value, boolean isMistake) {
+        int old = board.get(cell);
+        int move = cell | old << OLD_SHIFT | value << NEW_SHIFT
+                | (mistake[cell] ? OLD_MISTAKE : 0) | (isMistake ? NEW_MISTAKE : 0);
+        if (cursor * 2 + 2 > journal.length) {
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[cursor * 2] = move;
+        journal[cursor * 2 + 1] = (int) Math.min(Integer.MAX_VALUE, elapsedMillis());
+        cursor++;
+        length = cursor;
+        apply(cell, value, isMistake);
+        if (isMistake) {
+            mistakes++;
+        }
+    }
+
+    // Takes back the last applied move; returns its cell, or -1 if there is none.
+    // Mistakes stay counted.
+    int undo() {
+        if (cursor == 0) {
+            return -1;
+        }
+        int move = journal[--cursor * 2];
+        int cell = move & ((1 << CELL_BITS) - 1);
+        apply(cell, move >>> OLD_SHIFT & VALUE_MASK, (move & OLD_MISTAKE) != 0);
+        return cell;
+    }
+
+    // Plays the next undone move again; returns its cell, or -1 if there is none
+    int redo() {
+        if (cursor == length) {
+            return -1;
+        }
+        int move = journal[cursor++ * 2];
+        int cell = move & ((1 << CELL_BITS) - 1);
+        apply(cell, move >>> NEW_SHIFT & VALUE_MASK, (move & NEW_MISTAKE) != 0);
+        return cell;
+    }
+
+    private void apply(int cell, int value, boolean isMistake) {
+        state.set(cell, value);
+        mistake[cell] = isMistake;
+    }
+
+    boolean canUndo() {
+        return cursor > 0;
+    }
+
+    boolean canRedo() {
+        return cursor < length;
+    }
+
+    boolean isGiven(int cell) {
+        return givens.get(cell) != 0;
+    }
+
+    boolean isMistake(int cell) {
+        return mistake[cell];
+    }
+
+    int mistakes() {
+        return mistakes;
+    }
+
+    int moves() {
+        return cursor;
+    }
+
+    long elapsedMillis() {
+        return elapsedBefore + System.currentTimeMillis() - startedAt;
+    }
+
+    // Writes the session to a temporary file next to path and moves it over path, so a
+    // crash mid-save leaves the previous save intact
+    void save(Path path) throws IOException {
+        int size = board.size();
+        int cellCount = board.cellCount();
+        int boardBytes = boardBytes(size);
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 3 * boardBytes + (cellCount + 7) / 8
+                + CageIndex.JOIN_BYTES + 8 * length);
+        out.putInt(MAGIC).putShort((short) VERSION)
+                .put((byte) size).put((byte) mode.ordinal()).put((byte) difficulty.ordinal()).put((byte) 0)
+                .putInt(mistakes).putLong(elapsedMillis()).putInt(length).putInt(cursor);
+        writeBoard(out, givens);
+        writeBoard(out, board);
+        writeBoard(out, solution);
+        byte[] mistakeBits = new byte[(cellCount + 7) / 8];
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (mistake[cell]) {
+                mistakeBits[cell >> 3] |= (byte) (1 << (cell & 7));
+            }
+        }
+        out.put(mistakeBits);
+        byte[] joins = new byte[CageIndex.JOIN_BYTES];
+        cageIndex.writeJoins(joins, 0);
+        out.put(joins);
+        for (int i = 0; i < 2 * length; i++) {
+            out.putInt(journal[i]);
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static GameSession read(Path path) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+                throw new IOException("Not a saved game: " + path);
+            }
+            int size = in.get();
+            Board.boxSizeOf(size); // Rejects sizes the game can't play
+            Mode mode = Mode.values()[in.get()];
+            Difficulty difficulty = Difficulty.values()[in.get()];
+            in.get();
+            int mistakes = in.getInt();
+            long elapsed = in.getLong();
+            int length = in.getInt();
+            int cursor = in.getInt();
+            // Each move is 8 bytes, so a length the file can't hold is corrupt (and 2 * length can't overflow)
+            if (length < 0 || length > in.remaining() / 8 || cursor < 0 || cursor > length) {
+                throw new IOException("Corrupt journal in saved game: " + path);
+            }
+            Board givens = readBoard(in, size);
+            Board board = readBoard(in, size);
+            Board solution = readBoard(in, size);
+            byte[] mistakeBits = new byte[(board.cellCount() + 7) / 8];
+            in.get(mistakeBits);
+            byte[] joins = new byte[CageIndex.JOIN_BYTES];
+            in.get(joins);
+            CageIndex cageIndex = CageIndex.EMPTY;
+            if (mode == Mode.KILLER) {
+                List<Cage> cages = CageIndex.cagesFromJoins(joins, 0);
+                cageIndex = CageIndex.build(cages, solution);
+            }
+
+            GameSession session = new GameSession(mode, difficulty, givens, board, solution, cageIndex, elapsed);
+            session.mistakes = mistakes;
+            for (int cell = 0; cell < board.cellCount(); cell++) {
+                session.mistake[cell] = (mistakeBits[cell >> 3] & (1 << (cell & 7))) != 0;
+            }
+            session.journal = new int[Math.max(64, 2 * length)];
+            for (int i = 0; i < 2 * length; i++) {
+                session.journal[i] = in.getInt();
+            }
+            session.length = length;
+            session.cursor = cursor;
+            return session;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt saved game: " + path, e);
+        }
+    }
+
+    // The cage layout a Killer session was saved with, for the board view; none for Regular
+    List<Cage> cages() {
+        if (cageIndex == CageIndex.EMPTY) {
+            return Collections.emptyList();
+        }
+        return CageIndex.cagesFromJoins(joinsOf(cageIndex), 0);
+    }
+
+    private static byte[] joinsOf(CageIndex cageIndex) {
+        byte[] joins = new byte[CageIndex.JOIN_BYTES];
+        cageIndex.writeJoins(joins, 0);
+        return joins;
+    }
+
+    // 9x9 boards pack two cells per byte; bigger boards need a byte per cell
+    private static int boardBytes(int size) {
+        return size == Board.SIZE ? Board.PACKED_BYTES : size * size;
+    }
+
+    private static void writeBoard(ByteBuffer out, Board board) {
+        if (board.size() == Board.SIZE) {
+            byte[] packed = new byte[Board.PACKED_BYTES];
+            board.writePacked(packed, 0);
+            out.put(packed);
+        } else {
+            out.put(board.cells);
+        }
+    }
+
+    private static Board readBoard(ByteBuffer in, int size) {
+        Board board = new Board(size);
+        if (size == Board.SIZE) {
+            byte[] packed = new byte[Board.PACKED_BYTES];
+            in.get(packed);
+            board.readPacked(packed, 0);
+        } else {
+            in.get(board.cells);
+        }
+        return board;
+    }
+}
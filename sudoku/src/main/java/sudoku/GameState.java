@@ -0,0 +1,196 @@
+package sudoku;
+
+// Live view of a game in progress, kept up to date one move at a time.
+// For every row, column and box it counts how often each digit appears and keeps a
+// bitmask of the digits present; Killer cages also track their running sum, filled
+// cells and digits. A conflict check, the pencil-mark candidates of a cell and the
+// solved test are therefore O(1), no matter how many cells the board has.
+// All moves must go through set(); the board passed in is updated in place.
+final class GameState {
+    private final Board board;
+    private final CageIndex cageIndex;
+    private final int size;
+    private final int allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+
+    // Per unit (rows, then columns, then boxes): digits present and how often each appears
+    private final int[] unitDigits;
+    private final byte[] unitCounts; // [unit * (size + 1) + digit]
+    // Per cage: sum and number of the entered digits, digits present and their counts
+    private final int[] cageSums;
+    private final int[] cageFilled;
+    private final int[] cageDigits;
+    private final byte[] cageCounts; // [cage * (size + 1) + digit]
+
+    private int filled;
+    private int duplicates; // Extra copies of a digit within a unit or a no-repeat cage
+    private int badCages; // Cages over their sum, or full with the wrong sum
+
+    GameState(Board board, CageIndex cageIndex) {
+        BoardGeometry geometry = BoardGeometry.of(board.size());
+        this.board = board;
+        this.cageIndex = cageIndex;
+        this.size = board.size();
+        this.allDigits = geometry.allDigits;
+        this.rowOf = geometry.rowOf;
+        this.colOf = geometry.colOf;
+        this.boxOf = geometry.boxOf;
+        unitDigits = new int[3 * size];
+        unitCounts = new byte[3 * size * (size + 1)];
+        int cages = cageIndex.cageCount();
+        cageSums = new int[cages];
+        cageFilled = new int[cages];
+        cageDigits = new int[cages];
+        cageCounts = new byte[cages * (size + 1)];
+
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (board.get(cell) != 0) {
+                add(cell, board.get(cell));
+            }
+        }
+    }
+
+    // Writes value (0 clears) into the cell and updates every count it touches
+    void set(int cell, int value) {
+        int old = board.get(cell);
+        if (old == value) {
+            return;
+        }
+        if (old != 0) {
+            remove(cell, old);
+        }
+        board.set(cell, value);
+        if (value != 0) {
+            add(cell, value);
+        }
+    }
+
+    void set(int row, int col, int value) {
+        set(row * size + col, value);
+    }
+
+    // Whether value in this cell clashes with its row, column, box or cage.
+    // Ignores whatever the cell itself holds, so it works before or after set().
+    boolean isConflict(int cell, int value) {
+        int own = board.get(cell) == value ? 1 : 0;
+        if (unitCounts[countIndex(rowOf[cell], value)] > own
+                || unitCounts[countIndex(size + colOf[cell], value)] > own
+                || unitCounts[countIndex(2 * size + boxOf[cell], value)] > own) {
+            return true;
+        }
+        int cage = cageOf(cell);
+        if (cage == -1) {
+            return false;
+        }
+        int current = board.get(cell);
+        int sum = cageSums[cage] - current + value;
+        int count = cageFilled[cage] + (current == 0 ? 1 : 0);
+        return sum > cageIndex.sum(cage)
+                || count == cageIndex.size(cage) && sum != cageIndex.sum(cage)
+                || cageIndex.isDistinct(cage) && cageCounts[cage * (size + 1) + value] > own;
+    }
+
+    boolean isConflict(int row, int col, int value) {
+        return isConflict(row * size + col, value);
+    }
+
+    // Pencil marks: digits not yet used by the cell's row, column, box or no-repeat cage
+    int candidates(int cell) {
+        if (board.get(cell) != 0) {
+            return 0;
+        }
+        int used = unitDigits[rowOf[cell]] | unitDigits[size + colOf[cell]] | unitDigits[2 * size + boxOf[cell]];
+        int cage = cageOf(cell);
+        if (cage != -1 && cageIndex.isDistinct(cage)) {
+            used |= cageDigits[cage];
+        }
+        return allDigits & ~used;
+    }
+
+    int filled() {
+        return filled;
+    }
+
+    // Every cell filled with nothing clashing; with a unique puzzle that is its solution
+    boolean isSolved() {
+        return filled == board.cellCount() && duplicates == 0 && badCages == 0;
+    }
+
+    private void add(int cell, int value) {
+        filled++;
+        addToUnit(rowOf[cell], value);
+        addToUnit(size + colOf[cell], value);
+        addToUnit(2 * size + boxOf[cell], value);
+        int cage = cageOf(cell);
+        if (cage != -1) {
+            boolean wasBad = isBad(cage);
+            cageSums[cage] += value;
+            cageFilled[cage]++;
+            if (cageCounts[cage * (size + 1) + value]++ > 0 && cageIndex.isDistinct(cage)) {
+                duplicates++;
+            }
+            cageDigits[cage] |= 1 << (value - 1);
+            updateBadCages(cage, wasBad);
+        }
+    }
+
+    private void remove(int cell, int value) {
+        filled--;
+        removeFromUnit(rowOf[cell], value);
+        removeFromUnit(size + colOf[cell], value);
+        removeFromUnit(2 * size + boxOf[cell], value);
+        int cage = cageOf(cell);
+        if (cage != -1) {
+            boolean wasBad = isBad(cage);
+            cageSums[cage] -= value;
+            cageFilled[cage]--;
+            int index = cage * (size + 1) + value;
+            if (--cageCounts[index] > 0) {
+                if (cageIndex.isDistinct(cage)) {
+                    duplicates--;
+                }
+            } else {
+                cageDigits[cage] &= ~(1 << (value - 1));
+            }
+            updateBadCages(cage, wasBad);
+        }
+    }
+
+    private void addToUnit(int unit, int value) {
+        if (unitCounts[countIndex(unit, value)]++ > 0) {
+            duplicates++;
+        }
+        unitDigits[unit] |= 1 << (value - 1);
+    }
+
+    private void removeFromUnit(int unit, int value) {
+        if (--unitCounts[countIndex(unit, value)] > 0) {
+            duplicates--;
+        } else {
+            unitDigits[unit] &= ~(1 << (value - 1));
+        }
+    }
+
+    private int countIndex(int unit, int value) {
+        return unit * (size + 1) + value;
+    }
+
+    // Cages only exist on 9x9 Killer boards
+    private int cageOf(int cell) {
+        return cageSums.length == 0 ? -1 : cageIndex.cageOf(cell);
+    }
+
+    private boolean isBad(int cage) {
+        int sum = cageSums[cage];
+        return sum > cageIndex.sum(cage) || cageFilled[cage] == cageIndex.size(cage) && sum != cageIndex.sum(cage);
+    }
+
+    private void updateBadCages(int cage, boolean wasBad) {
+        boolean bad = isBad(cage);
+        if (bad != wasBad) {
+            badCages += bad ? 1 : -1;
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package sudoku;
+
+// Rates a puzzle the way a person would solve it: apply the easiest technique that
+// still makes progress, start over from the easiest after every step, and note the
+// hardest technique needed along the way. The score adds up each step's weight,
+// so two puzzles that top out at the same technique can still be told apart.
+// A puzzle none of the techniques can finish is graded TRIAL_AND_ERROR.
+// Bands: singles are EASY, intersections and subsets MEDIUM, fish and chains HARD,
+// anything beyond them EXTREME.
+// Works on any board size; all state is preallocated, so one Grader per thread
+// can rate many thousands of puzzles per second.
+final class Grader {
+    enum Technique {
+        HIDDEN_SINGLE(1, "Hidden single"),
+        NAKED_SINGLE(2, "Naked single"),
+        POINTING(4, "Pointing"),
+        BOX_LINE(4, "Box/line reduction"),
+        NAKED_PAIR(5, "Naked pair"),
+        HIDDEN_PAIR(6, "Hidden pair"),
+        NAKED_TRIPLE(7, "Naked triple"),
+        HIDDEN_TRIPLE(8, "Hidden triple"),
+        X_WING(10, "X-Wing"),
+        SWORDFISH(14, "Swordfish"),
+        XY_CHAIN(18, "XY-chain"),
+        TRIAL_AND_ERROR(40, "Trial and error");
+
+        final int weight;
+        final String label; // How hints name it
+
+        Technique(int weight, String label) {
+            this.weight = weight;
+            this.label = label;
+        }
+    }
+
+    static final class Grade {
+        final Technique hardest;
+        final int score;
+        final int steps;
+
+        Grade(Technique hardest, int score, int steps) {
+            this.hardest = hardest;
+            this.score = score;
+            this.steps = steps;
+        }
+
+        Difficulty difficulty() {
+            return bandOf(hardest);
+        }
+
+        @Override
+        public String toString() {
+            return hardest + " " + score;
+        }
+    }
+
+    // Longest XY-chain followed, in cells; longer chains are rare and expensive to find
+    private static final int MAX_CHAIN = 8;
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+    private final int[][] units;
+    private final int[][] peers;
+    private final BoardGeometry geometry;
+
+    // Working state for the puzzle being graded
+    private final byte[] values;
+    private final int[] candidates;
+    private int empty;
+    private boolean broken; // A contradiction turned up: the puzzle has no solution
+    private Technique hardest;
+    private int score;
+    private int steps;
+    private int placed; // Cells filled by the last singles step
+
+    // Hint support (see deduce): singles stop after placeLimit cells, the last cell placed
+    // is remembered, and while logging every elimination is collected per cell
+    private int placeLimit = Integer.MAX_VALUE;
+    private int placedCell;
+    private int placedBit;
+    private boolean logging;
+    private final int[] removed; // Candidates eliminated from each cell, as bits
+    private final int[] touched; // Cells with something in removed, in order
+    private int touchedCount;
+
+    // Scratch for subset, fish and chain searches
+    private final int[] items;
+    private final int[] masks;
+    private final boolean[] onChain;
+    private int[] unit;
+    private int digit;
+    private int coverOffset;
+
+    Grader() {
+        this(Board.SIZE);
+    }
+
+    Grader(int size) {
+        geometry = BoardGeometry.of(size);
+        this.size = size;
+        this.cellCount = geometry.cellCount;
+        this.allDigits = geometry.allDigits;
+        this.rowOf = geometry.rowOf;
+        this.colOf = geometry.colOf;
+        this.boxOf = geometry.boxOf;
+        this.units = geometry.units;
+        this.peers = geometry.peers;
+        values = new byte[cellCount];
+        candidates = new int[cellCount];
+        items = new int[size];
+        masks = new int[size];
+        onChain = new boolean[cellCount];
+        removed = new int[cellCount];
+        touched = new int[cellCount];
+    }
+
+    static Difficulty bandOf(Technique technique) {
+        if (technique.ordinal() <= Technique.NAKED_SINGLE.ordinal()) {
+            return Difficulty.EASY;
+        }
+        if (technique.ordinal() <= Technique.HIDDEN_TRIPLE.ordinal()) {
+            return Difficulty.MEDIUM;
+        }
+        if (technique.ordinal() <= Technique.XY_CHAIN.ordinal()) {
+            return Difficulty.HARD;
+        }
+        return Difficulty.EXTREME;
+    }
+
+    Grade grade(Board board) {
+        return grade(board.cells);
+    }
+
+    // Grades a flat board of this grader's size (0 = empty)
+    Grade grade(byte[] puzzle) {
+        load(puzzle);
+        while (empty > 0 && !broken) {
+            if (!step()) {
+                record(Technique.TRIAL_AND_ERROR, 1);
+                break;
+            }
+        }
+        if (broken) {
+            hardest = Technique.TRIAL_AND_ERROR;
+        }
+        return new Grade(hardest, score, steps);
+    }
+
+    // Hints: finds the easiest deduction, up to hardest, from a position part-way through
+    // a game, with values (0 = empty) and the candidates left for every empty cell.
+    // Returns the technique, or null if none applies. A single places one cell
+    // (placedCell/placedDigit); any other technique removes candidates, listed by
+    // eliminatedCount/eliminatedCell/eliminatedMask. The arrays passed in aren't changed.
+    Technique deduce(byte[] values, int[] candidates, Technique hardest) {
+        empty = 0;
+        broken = false;
+        for (int cell = 0; cell < cellCount; cell++) {
+            this.values[cell] = values[cell];
+            this.candidates[cell] = values[cell] == 0 ? candidates[cell] : 0;
+            if (values[cell] == 0) {
+                empty++;
+            }
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            removed[touched[i]] = 0;
+        }
+        touchedCount = 0;
+        placedCell = -1;
+        if (empty == 0) {
+            return null;
+        }
+        placeLimit = 1;
+        logging = true;
+        try {
+            return applyEasiest(hardest);
+        } finally {
+            placeLimit = Integer.MAX_VALUE;
+            logging = false;
+        }
+    }
+
+    int placedCell() {
+        return placedCell;
+    }
+
+    int placedDigit() {
+        return Integer.numberOfTrailingZeros(placedBit) + 1;
+    }
+
+    int eliminatedCount() {
+        return touchedCount;
+    }
+
+    int eliminatedCell(int i) {
+        return touched[i];
+    }
+
+    int eliminatedMask(int i) {
+        return removed[touched[i]];
+    }
+
+    private void load(byte[] puzzle) {
+        empty = 0;
+        broken = false;
+        hardest = Technique.HIDDEN_SINGLE;
+        score = 0;
+        steps = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            values[cell] = 0;
+            candidates[cell] = allDigits;
+            empty++;
+        }
+        for (int cell = 0; cell < cellCount && !broken; cell++) {
+            if (puzzle[cell] != 0) {
+                int bit = 1 << (puzzle[cell] - 1);
+                if ((candidates[cell] & bit) == 0) {
+                    broken = true; // Clashes with an earlier given
+                } else {
+                    place(cell, bit);
+                }
+            }
+        }
+    }
+
+    // One round: the easiest technique that makes progress; false if none does
+    private boolean step() {
+        Technique technique = applyEasiest(Technique.XY_CHAIN);
+        if (technique == null) {
+            return false;
+        }
+        return record(technique, technique.ordinal() <= Technique.NAKED_SINGLE.ordinal() ? placed : 1);
+    }
+
+    // Applies the easiest technique up to hardest that makes progress; null if none does
+    private Technique applyEasiest(Technique hardest) {
+        for (Technique technique : TECHNIQUES) {
+            if (technique.ordinal() > hardest.ordinal()) {
+                break;
+            }
+            if (apply(technique)) {
+                return technique;
+            }
+        }
+        return null;
+    }
+
+    private boolean apply(Technique technique) {
+        switch (technique) {
+            case HIDDEN_SINGLE:
+                return (placed = hiddenSingles()) > 0;
+            case NAKED_SINGLE:
+                return (placed = nakedSingles()) > 0;
+            case POINTING:
+                return pointing();
+            case BOX_LINE:
+                return boxLine();
+            case NAKED_PAIR:
+                return nakedSubset(2);
+            case HIDDEN_PAIR:
+                return hiddenSubset(2);
+            case NAKED_TRIPLE:
+                return nakedSubset(3);
+            case HIDDEN_TRIPLE:
+                return hiddenSubset(3);
+            case X_WING:
+                return fish(2);
+            case SWORDFISH:
+                return fish(3);
+            case XY_CHAIN:
+                return xyChain();
+            default:
+                return false; // Trial and error is what's left when nothing else applies
+        }
+    }
+
+    private boolean record(Technique technique, int times) {
+        if (technique.ordinal() > hardest.ordinal()) {
+            hardest = technique;
+        }
+        score += technique.weight * times;
+        steps += times;
+        return true;
+    }
+
+    private void place(int cell, int bit) {
+        placedCell = cell;
+        placedBit = bit;
+        values[cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        candidates[cell] = 0;
+        empty--;
+        for (int peer : peers[cell]) {
+            if ((candidates[peer] &= ~bit) == 0 && values[peer] == 0) {
+                broken = true;
+            }
+        }
+    }
+
+    // Removes mask from the cell's candidates; true if anything was removed
+    private boolean eliminate(int cell, int mask) {
+        int before = candidates[cell];
+        if ((before & mask) == 0) {
+            return false;
+        }
+        candidates[cell] = before & ~mask;
+        if (candidates[cell] == 0) {
+            broken = true;
+        }
+        if (logging) {
+            if (removed[cell] == 0) {
+                touched[touchedCount++] = cell;
+            }
+            removed[cell] |= before & mask;
+        }
+        return true;
+    }
+
+    private int hiddenSingles() {
+        int placed = 0;
+        for (int[] unit : units) {
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+                int c = candidates[cell];
+                twice |= once & c;
+                once |= c;
+            }
+            int hidden = once & ~twice;
+            while (hidden != 0) {
+                int bit = hidden & -hidden;
+                hidden ^= bit;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, bit);
+                        placed++;
+                        break;
+                    }
+                }
+                if (placed == placeLimit) {
+                    return placed;
+                }
+            }
+        }
+        return placed;
+    }
+
+    private int nakedSingles() {
+        int placed = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int c = candidates[cell];
+            if (c != 0 && (c & (c - 1)) == 0) {
+                place(cell, c);
+                if (++placed == placeLimit) {
+                    break;
+                }
+            }
+        }
+        return placed;
+    }
+
+    // A digit confined to one line within a box can't appear elsewhere on that line
+    private boolean pointing() {
+        for (int box = 0; box < size; box++) {
+            int[] boxCells = units[2 * size + box];
+            for (int bit = 1; bit <= allDigits; bit <<= 1) {
+                int rows = 0;
+                int cols = 0;
+                for (int cell : boxCells) {
+                    if ((candidates[cell] & bit) != 0) {
+                        rows |= 1 << rowOf[cell];
+                        cols |= 1 << colOf[cell];
+                    }
+                }
+                if (Integer.bitCount(rows) == 1 && clearOutsideBox(units[Integer.numberOfTrailingZeros(rows)], box, bit)) {
+                    return true;
+                }
+                if (Integer.bitCount(cols) == 1 && clearOutsideBox(units[size + Integer.numberOfTrailingZeros(cols)], box, bit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean clearOutsideBox(int[] line, int box, int bit) {
+        boolean changed = false;
+        for (int cell : line) {
+            if (boxOf[cell] != box) {
+                changed |= eliminate(cell, bit);
+            }
+        }
+        return changed;
+    }
+
+    // A digit confined to one box within a line can't appear elsewhere in that box
+    private boolean boxLine() {
+        for (int line = 0; line < 2 * size; line++) {
+            for (int bit = 1; bit <= allDigits; bit <<= 1) {
+                int boxes = 0;
+                for (int cell : units[line]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        boxes |= 1 << boxOf[cell];
+                    }
+                }
+                if (Integer.bitCount(boxes) != 1) {
+                    continue;
+                }
+                boolean changed = false;
+                for (int cell : units[2 * size + Integer.numberOfTrailingZeros(boxes)]) {
+                    boolean onLine = line < size ? rowOf[cell] == line : colOf[cell] == line - size;
+                    if (!onLine) {
+                        changed |= eliminate(cell, bit);
+                    }
+                }
+                if (changed) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // k cells of a unit holding only k digits between them: no other cell there can have those digits
+    private boolean nakedSubset(int k) {
+        for (int[] u : units) {
+            int n = 0;
+            for (int cell : u) {
+                int count = Integer.bitCount(candidates[cell]);
+                if (count >= 2 && count <= k) {
+                    masks[n++] = candidates[cell];
+                }
+            }
+            unit = u;
+            if (n >= k && combinations(n, k, 0, 0, 0, Subset.NAKED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // k digits that fit in only k cells of a unit: those cells can't hold anything else
+    private boolean hiddenSubset(int k) {
+        for (int[] u : units) {
+            int n = 0;
+            for (int bit = 1; bit <= allDigits; bit <<= 1) {
+                int positions = 0;
+                for (int i = 0; i < size; i++) {
+                    if ((candidates[u[i]] & bit) != 0) {
+                        positions |= 1 << i;
+                    }
+                }
+                int count = Integer.bitCount(positions);
+                if (count >= 2 && count <= k) {
+                    items[n] = bit;
+                    masks[n++] = positions;
+                }
+            }
+            unit = u;
+            if (n >= k && combinations(n, k, 0, 0, 0, Subset.HIDDEN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // X-Wing (k = 2) and Swordfish (k = 3): k rows whose candidates for a digit all sit
+    // in the same k columns clear that digit from the rest of those columns, and vice versa
+    private boolean fish(int k) {
+        for (int bit = 1; bit <= allDigits; bit <<= 1) {
+            digit = bit;
+            for (int base = 0; base < 2; base++) {
+                int baseOffset = base == 0 ? 0 : size;
+                coverOffset = base == 0 ? size : 0;
+                int n = 0;
+                for (int line = 0; line < size; line++) {
+                    int positions = 0;
+                    int[] cells = units[baseOffset + line];
+                    for (int i = 0; i < size; i++) {
+                        if ((candidates[cells[i]] & bit) != 0) {
+                            positions |= 1 << i;
+                        }
+                    }
+                    int count = Integer.bitCount(positions);
+                    if (count >= 2 && count <= k) {
+                        items[n] = line;
+                        masks[n++] = positions;
+                    }
+                }
+                if (n >= k && combinations(n, k, 0, 0, 0, Subset.FISH)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private enum Subset { NAKED, HIDDEN, FISH }
+
+    // Tries every k of the n masks whose union has exactly k bits, until one eliminates something
+    private boolean combinations(int n, int k, int start, int chosen, int union, Subset kind) {
+        if (Integer.bitCount(chosen) == k) {
+            return Integer.bitCount(union) == k && applySubset(chosen, union, kind);
+        }
+        for (int i = start; i < n; i++) {
+            int next = union | masks[i];
+            if (Integer.bitCount(next) <= k && combinations(n, k, i + 1, chosen | 1 << i, next, kind)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean applySubset(int chosen, int union, Subset kind) {
+        boolean changed = false;
+        switch (kind) {
+            case NAKED:
+                // Every other cell of the unit loses the subset's digits
+                for (int cell : unit) {
+                    int c = candidates[cell];
+                    if ((c & ~union) != 0) {
+                        changed |= eliminate(cell, union);
+                    }
+                }
+                break;
+            case HIDDEN: {
+                int digits = 0;
+                for (int i = 0; i < 32; i++) {
+                    if ((chosen >> i & 1) != 0) {
+                        digits |= items[i];
+                    }
+                }
+                for (int position = 0; position < size; position++) {
+                    if ((union >> position & 1) != 0) {
+                        changed |= eliminate(unit[position], ~digits);
+                    }
+                }
+                break;
+            }
+            case FISH: {
+                int lines = 0;
+                for (int i = 0; i < 32; i++) {
+                    if ((chosen >> i & 1) != 0) {
+                        lines |= 1 << items[i];
+                    }
+                }
+                for (int cover = 0; cover < size; cover++) {
+                    if ((union >> cover & 1) == 0) {
+                        continue;
+                    }
+                    int[] cells = units[coverOffset + cover];
+                    for (int position = 0; position < size; position++) {
+                        if ((lines >> position & 1) == 0) {
+                            changed |= eliminate(cells[position], digit);
+                        }
+                    }
+                }
+                break;
+            }
+        }
+        return changed;
+    }
+
+    // XY-chain: a path of two-candidate cells, each sharing a digit with the next, that
+    // starts and ends on digit z. Either the first cell or the last one is z, so any
+    // cell that sees both ends can't be z.
+    private boolean xyChain() {
+        for (int start = 0; start < cellCount; start++) {
+            int c = candidates[start];
+            if (Integer.bitCount(c) != 2) {
+                continue;
+            }
+            int low = c & -c;
+            if (chainFrom(start, low, c ^ low) || chainFrom(start, c ^ low, low)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean chainFrom(int start, int z, int forced) {
+        onChain[start] = true;
+        boolean found = extendChain(start, start, forced, z, 1);
+        onChain[start] = false;
+        return found;
+    }
+
+    // current is forced to digit forced if the chain's start isn't z
+    private boolean extendChain(int start, int current, int forced, int z, int length) {
+        if (length >= MAX_CHAIN) {
+            return false;
+        }
+        for (int next : peers[current]) {
+            int c = candidates[next];
+            if (onChain[next] || Integer.bitCount(c) != 2 || (c & forced) == 0) {
+                continue;
+            }
+            int nextForced = c & ~forced;
+            if (nextForced == z && length >= 2 && clearSeenByBoth(start, next, z)) {
+                return true;
+            }
+            onChain[next] = true;
+            boolean found = extendChain(start, next, nextForced, z, length + 1);
+            onChain[next] = false;
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean clearSeenByBoth(int first, int last, int bit) {
+        boolean changed = false;
+        for (int cell : peers[first]) {
+            if (cell != last && geometry.sees(cell, last)) {
+                changed |= eliminate(cell, bit);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,260 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Makes random solved grids of one size without the solve-and-retry loop.
+// A seed grid comes from a DFS that picks the most constrained cell and tries its
+// digits in random order, restarting if it runs into a long dead end. That search
+// has no propagation and stalls on 25x25, so there the seed is random diagonal
+// boxes completed by a budgeted BitmaskSolver instead. Further grids
+// are the seed under a random validity-preserving transformation: relabelled digits,
+// bands and stacks shuffled, rows and columns shuffled within them, and an optional
+// transposition. A transform is one pass over the cells, so grids come out at
+// millions per second. Every GRIDS_PER_SEED grids a new seed is searched so the
+// output keeps moving between essentially different grids; reseed() forces one
+// early, which also keeps seeded runs independent of what was generated before.
+final class GridGenerator {
+    static final int GRIDS_PER_SEED = 64;
+
+    private final int size;
+    private final int boxSize;
+    private final int cellCount;
+    private final int allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+    private final Random random;
+
+    private final byte[] seed;
+    private int gridsLeft; // Transforms of the current seed still to hand out
+    private long seedNodes; // DFS nodes spent on seeds, for stats
+
+    // DFS state
+    private final byte[] grid;
+    private final int[] rowUsed;
+    private final int[] colUsed;
+    private final int[] boxUsed;
+    private final int[][] digitOrder; // Per depth, so the recursion allocates nothing
+    private long nodes;
+    private long nodeLimit;
+    private final BitmaskSolver solver; // Seeds 25x25 grids, null for smaller sizes
+
+    // Transform scratch
+    private final int[] rowMap;
+    private final int[] colMap;
+    private final byte[] relabel;
+    private final int[] groupOrder;
+    private final int[] lineOrder;
+    private long rngState;
+
+    GridGenerator(int size, Random random) {
+        BoardGeometry geometry = BoardGeometry.of(size);
+        this.size = size;
+        this.boxSize = geometry.boxSize;
+        this.cellCount = geometry.cellCount;
+        this.allDigits = geometry.allDigits;
+        this.rowOf = geometry.rowOf;
+        this.colOf = geometry.colOf;
+        this.boxOf = geometry.boxOf;
+        this.random = random;
+        seed = new byte[cellCount];
+        grid = new byte[cellCount];
+        rowUsed = new int[size];
+        colUsed = new int[size];
+        boxUsed = new int[size];
+        digitOrder = new int[cellCount][size];
+        rowMap = new int[size];
+        colMap = new int[size];
+        relabel = new byte[size + 1];
+        groupOrder = new int[boxSize];
+        lineOrder = new int[boxSize];
+        solver = boxSize > 4 ? new BitmaskSolver(size) : null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long seedNodes() {
+        return seedNodes;
+    }
+
+    // Makes the next grid start from a fresh DFS seed
+    void reseed() {
+        gridsLeft = 0;
+    }
+
+    // Writes a random solved grid into out
+    void next(Board out) {
+        if (gridsLeft == 0) {
+            fillSeed();
+            gridsLeft = GRIDS_PER_SEED;
+        }
+        gridsLeft--;
+        transform(out.cells);
+    }
+
+    // Randomized DFS into seed. Budget: a few times the cell count, then restart.
+    private void fillSeed() {
+        if (solver != null) {
+            solveSeed();
+            return;
+        }
+        while (true) {
+            Arrays.fill(grid, (byte) 0);
+            Arrays.fill(rowUsed, 0);
+            Arrays.fill(colUsed, 0);
+            Arrays.fill(boxUsed, 0);
+            nodes = 0;
+            nodeLimit = 20L * cellCount;
+            boolean filled = fill(0);
+            seedNodes += nodes;
+            if (filled) {
+                System.arraycopy(grid, 0, seed, 0, cellCount);
+                return;
+            }
+            Metrics.FAILED_BOARDS.increment();
+        }
+    }
+
+    // The diagonal boxes share no unit, so any digits go; some starts send the solver
+    // down a very long dead end, so each gets a node budget and a fresh start after
+    private void solveSeed() {
+        solver.nodeLimit = 10L * cellCount;
+        while (true) {
+            Arrays.fill(grid, (byte) 0);
+            for (int box = 0; box < boxSize; box++) {
+                int origin = box * boxSize * size + box * boxSize;
+                for (int i = 0; i < size; i++) {
+                    int j = random.nextInt(i + 1);
+                    int cell = origin + i / boxSize * size + i % boxSize;
+                    int other = origin + j / boxSize * size + j % boxSize;
+                    grid[cell] = grid[other];
+                    grid[other] = (byte) (i + 1);
+                }
+            }
+            long before = solver.getNodeCount();
+            boolean solved = solver.search(grid, 1, seed) == 1;
+            seedNodes += solver.getNodeCount() - before;
+            if (solved) {
+                return;
+            }
+            Metrics.FAILED_BOARDS.increment();
+        }
+    }
+
+    private boolean fill(int depth) {
+        if (depth == cellCount) {
+            return true;
+        }
+        if (++nodes > nodeLimit) {
+            return false;
+        }
+        int best = -1;
+        int bestCandidates = 0;
+        int bestCount = size + 1;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (grid[cell] != 0) {
+                continue;
+            }
+            int candidates = allDigits & ~(rowUsed[rowOf[cell]] | colUsed[colOf[cell]] | boxUsed[boxOf[cell]]);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                best = cell;
+                bestCandidates = candidates;
+                bestCount = count;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (bestCount == 0) {
+            return false;
+        }
+
+        // Try the candidates in random order
+        int[] order = digitOrder[depth];
+        for (int i = 0; i < bestCount; i++) {
+            int bit = bestCandidates & -bestCandidates;
+            bestCandidates ^= bit;
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = bit;
+        }
+        int row = rowOf[best];
+        int col = colOf[best];
+        int box = boxOf[best];
+        for (int i = 0; i < bestCount; i++) {
+            int bit = order[i];
+            grid[best] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+            rowUsed[row] |= bit;
+            colUsed[col] |= bit;
+            boxUsed[box] |= bit;
+            if (fill(depth + 1)) {
+                return true;
+            }
+            rowUsed[row] &= ~bit;
+            colUsed[col] &= ~bit;
+            boxUsed[box] &= ~bit;
+            if (nodes > nodeLimit) {
+                break;
+            }
+        }
+        grid[best] = 0;
+        return false;
+    }
+
+    private void transform(byte[] out) {
+        rngState = random.nextLong() | 1;
+        lineMap(rowMap);
+        lineMap(colMap);
+        relabel[0] = 0;
+        for (int digit = 1; digit <= size; digit++) {
+            int j = 1 + nextInt(digit);
+            relabel[digit] = relabel[j];
+            relabel[j] = (byte) digit;
+        }
+        boolean transpose = (nextLong() & 1) != 0;
+
+        for (int row = 0; row < size; row++) {
+            int sourceRow = rowMap[row];
+            int base = row * size;
+            for (int col = 0; col < size; col++) {
+                int source = transpose ? colMap[col] * size + sourceRow : sourceRow * size + colMap[col];
+                out[base + col] = relabel[seed[source]];
+            }
+        }
+    }
+
+    // Random line order that keeps every band (or stack) together
+    private void lineMap(int[] map) {
+        shuffleIdentity(groupOrder);
+        for (int group = 0; group < boxSize; group++) {
+            shuffleIdentity(lineOrder);
+            for (int line = 0; line < boxSize; line++) {
+                map[group * boxSize + line] = groupOrder[group] * boxSize + lineOrder[line];
+            }
+        }
+    }
+
+    private void shuffleIdentity(int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int j = nextInt(i + 1);
+            values[i] = values[j];
+            values[j] = i;
+        }
+    }
+
+    // xorshift64*, seeded once per grid from the caller's Random so seeded runs repeat
+    private long nextLong() {
+        rngState ^= rngState >>> 12;
+        rngState ^= rngState << 25;
+        rngState ^= rngState >>> 27;
+        return rngState * 0x2545F4914F6CDD1DL;
+    }
+
+    private int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}
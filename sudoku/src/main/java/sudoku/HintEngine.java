@@ -0,0 +1,246 @@
+package sudoku;
+
+// Hints for a game in progress: the next step a person could take from the board as
+// it stands. Singles come first, then, on Killer boards, cage sums, then the rest of
+// the Grader's techniques in order of difficulty.
+//
+// The candidates of every cell are kept between calls. Digits that appear on the
+// board are applied one cell at a time, and candidates removed by earlier hints stay
+// removed, so asking again only syncs the cells that changed and runs one search.
+// A digit that was cleared or changed (undo, redo over it) rebuilds the candidates
+// from the board. candidates() is also what the board shows as pencil marks, so
+// hints that remove candidates fill the marks in as they go. Not thread-safe.
+final class HintEngine {
+    // One deduction: either a cell to fill, or candidates to remove from some cells
+    static final class Hint {
+        final Grader.Technique technique; // null for a Killer cage sum
+        final int cell; // Cell to fill, or -1 when the hint only removes candidates
+        final int digit;
+        final int[] cells; // Cells losing candidates
+        final int[] removed; // The candidates each of them loses, as digit bits
+        private final int size;
+
+        Hint(Grader.Technique technique, int cell, int digit, int[] cells, int[] removed, int size) {
+            this.technique = technique;
+            this.cell = cell;
+            this.digit = digit;
+            this.cells = cells;
+            this.removed = removed;
+            this.size = size;
+        }
+
+        String name() {
+            return technique != null ? technique.label : "Cage sum";
+        }
+
+        // e.g. "Hidden single: r3c5 is 7" or "Pointing: remove 4 from r1c7, r1c8"
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(name()).append(": ");
+            if (cell != -1) {
+                return text.append(cellName(cell)).append(" is ").append(Board.symbol(digit)).toString();
+            }
+            text.append("remove ");
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                // Say the digits once when every cell loses the same ones
+                if (i == 0 || removed[i] != removed[0]) {
+                    appendDigits(text, removed[i]).append(" from ");
+                }
+                text.append(cellName(cells[i]));
+            }
+            return text.toString();
+        }
+
+        private String cellName(int cell) {
+            return "r" + (cell / size + 1) + "c" + (cell % size + 1);
+        }
+
+        private static StringBuilder appendDigits(StringBuilder text, int digits) {
+            boolean first = true;
+            while (digits != 0) {
+                text.append(first ? "" : "/").append(Board.symbol(Integer.numberOfTrailingZeros(digits) + 1));
+                digits &= digits - 1;
+                first = false;
+            }
+            return text;
+        }
+    }
+
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+    private final int[][] peers;
+    private final CageIndex cageIndex;
+    private final boolean killer;
+    private final Grader grader;
+
+    private final byte[] values; // The board as last synced
+    private final int[] candidates; // 0 for filled cells
+
+    HintEngine(int size, CageIndex cageIndex) {
+        BoardGeometry geometry = BoardGeometry.of(size);
+        this.size = size;
+        this.cellCount = geometry.cellCount;
+        this.allDigits = geometry.allDigits;
+        this.peers = geometry.peers;
+        this.cageIndex = cageIndex;
+        this.killer = size == Board.SIZE && cageIndex.cageCount() > 0;
+        this.grader = new Grader(size);
+        values = new byte[cellCount];
+        candidates = new int[cellCount];
+        rebuild(null);
+    }
+
+    // The next deduction from the board as it is now, or null if none of the techniques
+    // finds one (or the board is full). Candidates the hint removes are removed here too;
+    // a cell to fill is only suggested, the player still has to enter it.
+    Hint next(Board board) {
+        sync(board);
+        Grader.Technique technique = grader.deduce(values, candidates, Grader.Technique.NAKED_SINGLE);
+        if (technique == null && killer) {
+            Hint hint = cageSum();
+            if (hint != null) {
+                return hint;
+            }
+        }
+        if (technique == null) {
+            technique = grader.deduce(values, candidates, Grader.Technique.XY_CHAIN);
+        }
+        if (technique == null) {
+            return null;
+        }
+        if (grader.placedCell() != -1 && technique.ordinal() <= Grader.Technique.NAKED_SINGLE.ordinal()) {
+            return new Hint(technique, grader.placedCell(), grader.placedDigit(), new int[0], new int[0], size);
+        }
+        int count = grader.eliminatedCount();
+        int[] cells = new int[count];
+        int[] removed = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = grader.eliminatedCell(i);
+            removed[i] = grader.eliminatedMask(i);
+            candidates[cells[i]] &= ~removed[i];
+        }
+        return new Hint(technique, -1, 0, cells, removed, size);
+    }
+
+    // Pencil marks of a cell as of the last sync: digits its row, column, box and
+    // no-repeat cage don't rule out, less whatever hints have removed
+    int candidates(int cell) {
+        return candidates[cell];
+    }
+
+    // Catches up with the board: new digits are applied one by one, anything else
+    // starts over from the board
+    void sync(Board board) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            int value = board.get(cell);
+            if (value == values[cell]) {
+                continue;
+            }
+            if (values[cell] != 0) {
+                rebuild(board);
+                return;
+            }
+            place(cell, value);
+        }
+    }
+
+    private void rebuild(Board board) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            values[cell] = 0;
+            candidates[cell] = allDigits;
+        }
+        if (board != null) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (board.get(cell) != 0) {
+                    place(cell, board.get(cell));
+                }
+            }
+        }
+    }
+
+    private void place(int cell, int value) {
+        int bit = 1 << (value - 1);
+        values[cell] = (byte) value;
+        candidates[cell] = 0;
+        for (int peer : peers[cell]) {
+            candidates[peer] &= ~bit;
+        }
+        if (killer) {
+            int cage = cageIndex.cageOf(cell);
+            if (cageIndex.isDistinct(cage)) {
+                for (int other = 0; other < cellCount; other++) {
+                    if (cageIndex.cageOf(other) == cage) {
+                        candidates[other] &= ~bit;
+                    }
+                }
+            }
+        }
+    }
+
+    // The first cage whose sum rules out candidates: a digit stays only if some set of
+    // distinct digits from the open cells' candidates, one per open cell, uses it and
+    // adds up to what the cage still needs
+    private Hint cageSum() {
+        for (int cage = 0; cage < cageIndex.cageCount(); cage++) {
+            if (!cageIndex.isDistinct(cage)) {
+                continue;
+            }
+            int open = 0;
+            int need = cageIndex.sum(cage);
+            int available = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cageIndex.cageOf(cell) == cage) {
+                    if (values[cell] == 0) {
+                        open++;
+                        available |= candidates[cell];
+                    } else {
+                        need -= values[cell];
+                    }
+                }
+            }
+            if (open == 0) {
+                continue;
+            }
+            int allowed = 0;
+            for (int digits = available; digits != 0; digits = (digits - 1) & available) {
+                if (Integer.bitCount(digits) == open && digitSum(digits) == need) {
+                    allowed |= digits;
+                }
+            }
+            int count = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cageIndex.cageOf(cell) == cage && (candidates[cell] & ~allowed) != 0) {
+                    count++;
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            int[] cells = new int[count];
+            int[] removed = new int[count];
+            count = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cageIndex.cageOf(cell) == cage && (candidates[cell] & ~allowed) != 0) {
+                    cells[count] = cell;
+                    removed[count++] = candidates[cell] & ~allowed;
+                    candidates[cell] &= allowed;
+                }
+            }
+            return new Hint(null, -1, 0, cells, removed, size);
+        }
+        return null;
+    }
+
+    private static int digitSum(int digits) {
+        int sum = 0;
+        while (digits != 0) {
+            sum += Integer.numberOfTrailingZeros(digits) + 1;
+            digits &= digits - 1;
+        }
+        return sum;
+    }
+}
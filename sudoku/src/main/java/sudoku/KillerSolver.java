@@ -0,0 +1,291 @@
+package sudoku;
+
+import java.util.Arrays;
+
+// Killer-aware solver: the bitmask search of BitmaskSolver plus cage constraints.
+// Each cage tracks its remaining sum, remaining cell count and used digits, and
+// a cell's candidates are its row/column/box candidates intersected with the
+// digits that can still complete its cage (looked up in COMBINATIONS). Cages
+// that repeat a digit only get the plain sum bounds.
+class KillerSolver implements SudokuSolver {
+    private static final int ALL_DIGITS = BitmaskSolver.ALL_DIGITS;
+    private static final int[] ROW_OF = BitmaskSolver.ROW_OF;
+    private static final int[] COL_OF = BitmaskSolver.COL_OF;
+    private static final int[] BOX_OF = BitmaskSolver.BOX_OF;
+    private static final int[][] UNITS = BitmaskSolver.UNITS;
+
+    // COMBINATIONS[(cells * 46 + sum) * 512 + available] is the union of every set of
+    // `cells` distinct digits from `available` that adds up to `sum`
+    private static final short[] COMBINATIONS = new short[10 * 46 * 512];
+
+    static {
+        for (int digits = 0; digits < 512; digits++) {
+            int count = Integer.bitCount(digits);
+            int sum = 0;
+            for (int d = 0; d < 9; d++) {
+                if ((digits & (1 << d)) != 0) {
+                    sum += d + 1;
+                }
+            }
+            // Every superset of this digit set can produce it
+            for (int available = digits; available < 512; available = (available + 1) | digits) {
+                COMBINATIONS[(count * 46 + sum) * 512 + available] |= (short) digits;
+            }
+        }
+    }
+
+    static int combinations(int cells, int sum, int available) {
+        if (cells > 9 || sum < 0 || sum > 45) {
+            return 0;
+        }
+        return COMBINATIONS[(cells * 46 + sum) * 512 + available];
+    }
+
+    private CageIndex cages = CageIndex.EMPTY;
+
+    // Per-depth working state, as in BitmaskSolver, with three extra arrays per cage
+    private final byte[][] cells = new byte[82][81];
+    private final int[][] rowUsed = new int[82][9];
+    private final int[][] colUsed = new int[82][9];
+    private final int[][] boxUsed = new int[82][9];
+    private final int[][] cageUsed = new int[82][81];
+    private final int[][] cageSumLeft = new int[82][81];
+    private final int[][] cageCellsLeft = new int[82][81];
+
+    private long nodeCount = 0;
+    private int solutionLimit;
+    private int solutionsFound;
+    private byte[] solutionOut;
+
+    KillerSolver() {
+    }
+
+    KillerSolver(CageIndex cages) {
+        this.cages = cages;
+    }
+
+    // Switches to another cage layout; the solver's buffers are reused
+    void setCages(CageIndex cages) {
+        this.cages = cages;
+    }
+
+    @Override
+    public boolean solve(int[][] board) {
+        Board flat = Board.fromGrid(board);
+        if (!solve(flat)) {
+            return false;
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            board[cell / 9][cell % 9] = flat.get(cell);
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] board, int limit) {
+        return countSolutions(Board.fromGrid(board), limit);
+    }
+
+    @Override
+    public boolean solve(Board board) {
+        return search(board.cells, 1, board.cells) == 1;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit) {
+        return search(board.cells, limit, null);
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    int search(byte[] board, int limit, byte[] solutionOut) {
+        this.solutionLimit = limit;
+        this.solutionsFound = 0;
+        this.solutionOut = solutionOut;
+        if (load(board)) {
+            search(0);
+        }
+        this.solutionOut = null;
+        return solutionsFound;
+    }
+
+    private boolean load(byte[] board) {
+        int cageCount = cages.cageCount();
+        Arrays.fill(rowUsed[0], 0);
+        Arrays.fill(colUsed[0], 0);
+        Arrays.fill(boxUsed[0], 0);
+        for (int cage = 0; cage < cageCount; cage++) {
+            cageUsed[0][cage] = 0;
+            cageSumLeft[0][cage] = cages.sum(cage);
+            cageCellsLeft[0][cage] = cages.size(cage);
+        }
+        Arrays.fill(cells[0], (byte) 0);
+
+        for (int cell = 0; cell < 81; cell++) {
+            int digit = board[cell];
+            if (digit == 0) {
+                continue;
+            }
+            int bit = 1 << (digit - 1);
+            if ((candidates(0, cell) & bit) == 0) {
+                return false; // Clashes with an earlier given or can't fit its cage
+            }
+            place(0, cell, bit);
+        }
+
+        // Cages whose givens already fill them must add up exactly
+        for (int cage = 0; cage < cageCount; cage++) {
+            if (cageCellsLeft[0][cage] == 0 && cageSumLeft[0][cage] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int candidates(int depth, int cell) {
+        int candidates = ALL_DIGITS & ~(rowUsed[depth][ROW_OF[cell]] | colUsed[depth][COL_OF[cell]] | boxUsed[depth][BOX_OF[cell]]);
+        int cage = cages.cageOf(cell);
+        if (cage == -1) {
+            return candidates;
+        }
+        int cellsLeft = cageCellsLeft[depth][cage];
+        int sumLeft = cageSumLeft[depth][cage];
+        if (cages.isDistinct(cage)) {
+            return candidates & combinations(cellsLeft, sumLeft, ALL_DIGITS & ~cageUsed[depth][cage]);
+        }
+        // The other cells left in the cage must still be able to make up the rest of the sum
+        int lowest = Math.max(1, sumLeft - 9 * (cellsLeft - 1));
+        int highest = Math.min(9, sumLeft - (cellsLeft - 1));
+        if (lowest > highest) {
+            return 0;
+        }
+        return candidates & ((1 << highest) - 1) & ~((1 << (lowest - 1)) - 1);
+    }
+
+    // Returns true once the solution limit is reached
+    private boolean search(int depth) {
+        if (!propagate(depth)) {
+            return false;
+        }
+
+        byte[] grid = cells[depth];
+        int bestCell = -1;
+        int bestCandidates = 0;
+        int bestCount = 10;
+        for (int cell = 0; cell < 81 && bestCount > 2; cell++) {
+            if (grid[cell] != 0) {
+                continue;
+            }
+            int candidates = candidates(depth, cell);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                bestCell = cell;
+                bestCandidates = candidates;
+                bestCount = count;
+            }
+        }
+
+        if (bestCell == -1) {
+            solutionsFound++;
+            if (solutionsFound == 1 && solutionOut != null) {
+                System.arraycopy(grid, 0, solutionOut, 0, 81);
+            }
+            return solutionsFound >= solutionLimit;
+        }
+
+        int next = depth + 1;
+        int cageCount = cages.cageCount();
+        while (bestCandidates != 0) {
+            int bit = bestCandidates & -bestCandidates;
+            bestCandidates ^= bit;
+            System.arraycopy(grid, 0, cells[next], 0, 81);
+            System.arraycopy(rowUsed[depth], 0, rowUsed[next], 0, 9);
+            System.arraycopy(colUsed[depth], 0, colUsed[next], 0, 9);
+            System.arraycopy(boxUsed[depth], 0, boxUsed[next], 0, 9);
+            System.arraycopy(cageUsed[depth], 0, cageUsed[next], 0, cageCount);
+            System.arraycopy(cageSumLeft[depth], 0, cageSumLeft[next], 0, cageCount);
+            System.arraycopy(cageCellsLeft[depth], 0, cageCellsLeft[next], 0, cageCount);
+            place(next, bestCell, bit);
+            nodeCount++;
+            if (search(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Naked and hidden singles, with cage combinations folded into every candidate set
+    private boolean propagate(int depth) {
+        byte[] grid = cells[depth];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int cell = 0; cell < 81; cell++) {
+                if (grid[cell] != 0) {
+                    continue;
+                }
+                int candidates = candidates(depth, cell);
+                if (candidates == 0) {
+                    return false;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    place(depth, cell, candidates);
+                    changed = true;
+                }
+            }
+
+            for (int[] unit : UNITS) {
+                int once = 0;
+                int twice = 0;
+                int used = 0;
+                for (int cell : unit) {
+                    if (grid[cell] != 0) {
+                        used |= 1 << (grid[cell] - 1);
+                        continue;
+                    }
+                    int candidates = candidates(depth, cell);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                if ((once | used) != ALL_DIGITS) {
+                    return false;
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    int target = -1;
+                    for (int cell : unit) {
+                        if (grid[cell] == 0 && (candidates(depth, cell) & bit) != 0) {
+                            target = cell;
+                            break;
+                        }
+                    }
+                    if (target == -1) {
+                        return false;
+                    }
+                    place(depth, target, bit);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void place(int depth, int cell, int bit) {
+        cells[depth][cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        rowUsed[depth][ROW_OF[cell]] |= bit;
+        colUsed[depth][COL_OF[cell]] |= bit;
+        boxUsed[depth][BOX_OF[cell]] |= bit;
+        int cage = cages.cageOf(cell);
+        if (cage != -1) {
+            cageUsed[depth][cage] |= bit;
+            cageSumLeft[depth][cage] -= Integer.numberOfTrailingZeros(bit) + 1;
+            cageCellsLeft[depth][cage]--;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package sudoku;
+
+// Set of primitive longs, e.g. puzzle fingerprints, without boxing: open addressing
+// with linear probing in one long[] that doubles at 3/4 full. 0 marks an empty slot,
+// so the value 0 itself is tracked by a flag. An entry costs 11-22 bytes depending
+// on how recently the table doubled (30 million fit in a 512 MB table), plus the old
+// table while it grows. Not thread-safe.
+final class LongHashSet {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+
+    LongHashSet() {
+        this(16);
+    }
+
+    LongHashSet(int expected) {
+        int capacity = 16;
+        while (capacity < MAX_CAPACITY && capacity * 3L / 4 < expected) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // Adds value; false if it was already present
+    boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(value);
+        while (slots[slot] != 0) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        if (++size >= resizeAt) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int slot = slotOf(value);
+        while (slots[slot] != 0) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Values may be fingerprints that are already well mixed, or small counters
+    // that aren't, so spread the bits before taking the slot
+    private int slotOf(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity == MAX_CAPACITY ? MAX_CAPACITY - 1 : capacity / 4 * 3;
+    }
+
+    private void grow() {
+        if (slots.length == MAX_CAPACITY) {
+            if (size == MAX_CAPACITY - 1) {
+                throw new IllegalStateException("LongHashSet is full");
+            }
+            return;
+        }
+        long[] old = slots;
+        allocate(old.length * 2);
+        for (long value : old) {
+            if (value != 0) {
+                int slot = slotOf(value);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = value;
+            }
+        }
+    }
+}
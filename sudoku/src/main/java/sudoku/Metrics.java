@@ -0,0 +1,258 @@
+package sudoku;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for generation and play.
+// Everything is off unless the JVM runs with -Dsudoku.metrics=true. ENABLED is a
+// static final, so the JIT drops the guarded recording code when it is false.
+// When on, metrics are published over JMX (sudoku:type=Metrics) and can be dumped
+// periodically with -Dsudoku.metrics.dumpSeconds=N (-Dsudoku.metrics.format=json for JSON).
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("sudoku.metrics");
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean STARTED = new AtomicBoolean(false);
+
+    static final Counter SOLVER_NODES = counter("solver.nodes");
+    static final Histogram SOLVER_TIME = histogram("solver.time");
+    static final Counter FAILED_BOARDS = counter("generation.failedBoards");
+    static final Histogram GENERATION_TIME = histogram("generation.time");
+    static final Counter GENERATION_TIMEOUTS = counter("generation.timeouts");
+    static final Counter REMOVAL_RETRIES = counter("removal.retries");
+    static final Counter RATING_REJECTS = counter("generation.ratingRejects");
+    static final Counter DUPLICATES = counter("generation.duplicates");
+    static final Histogram CAGE_GENERATION_TIME = histogram("cages.time");
+    static final Histogram GUI_BUILD_TIME = histogram("gui.buildTime");
+    static final Histogram REQUEST_TIME = histogram("server.requestTime");
+    static final Counter SESSIONS_EVICTED = counter("sessions.evicted");
+
+    private Metrics() {
+    }
+
+    static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    // Current time for a latency measurement, or 0 when metrics are off
+    static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Registers the JMX bean and starts the periodic dump; does nothing when disabled
+    static void start() {
+        if (!ENABLED || !STARTED.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName("sudoku:type=Metrics"));
+        } catch (Exception e) {
+            System.err.println("Could not register metrics MBean: " + e);
+        }
+
+        long dumpSeconds = Long.getLong("sudoku.metrics.dumpSeconds", 0);
+        boolean json = "json".equals(System.getProperty("sudoku.metrics.format"));
+        if (dumpSeconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(() -> System.err.println(json ? toJson() : toText()),
+                    dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+        // Final numbers on exit, so short batch runs report too
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(json ? toJson() : toText())));
+    }
+
+    static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    static String toText() {
+        StringBuilder text = new StringBuilder("--- sudoku metrics ---\n");
+        counterValues().forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+        new TreeMap<>(HISTOGRAMS).forEach((name, histogram) -> text.append(name)
+                .append(" count=").append(histogram.count())
+                .append(" meanUs=").append(histogram.mean() / 1000)
+                .append(" p50Us=").append(histogram.percentile(50) / 1000)
+                .append(" p99Us=").append(histogram.percentile(99) / 1000)
+                .append(" maxUs=").append(histogram.max() / 1000)
+                .append('\n'));
+        return text.toString();
+    }
+
+    static String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : counterValues().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            separator = ",";
+        }
+        json.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"meanNanos\":").append(histogram.mean())
+                    .append(",\"p50Nanos\":").append(histogram.percentile(50))
+                    .append(",\"p99Nanos\":").append(histogram.percentile(99))
+                    .append(",\"maxNanos\":").append(histogram.max())
+                    .append('}');
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    static final class Counter {
+        private final LongAdder adder = new LongAdder();
+
+        void increment() {
+            if (ENABLED) {
+                adder.increment();
+            }
+        }
+
+        void add(long amount) {
+            if (ENABLED) {
+                adder.add(amount);
+            }
+        }
+
+        long sum() {
+            return adder.sum();
+        }
+    }
+
+    // Log-linear latency histogram in nanoseconds, HDR style: every power of two
+    // is split into 8 sub-buckets, so any recorded value is within 12.5%
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        // Records the time elapsed since a Metrics.startTimer() value
+        void recordSince(long startNanos) {
+            if (ENABLED) {
+                record(System.nanoTime() - startNanos);
+            }
+        }
+
+        void record(long nanos) {
+            if (!ENABLED) {
+                return;
+            }
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(value));
+            count.increment();
+            total.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long mean() {
+            long samples = count.sum();
+            return samples == 0 ? 0 : total.sum() / samples;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Lower bound of the bucket holding the given percentile
+        long percentile(double percent) {
+            long samples = count.sum();
+            if (samples == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(samples * percent / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return bucketValue(i);
+                }
+            }
+            return max.get();
+        }
+
+        Map<String, Long> summary() {
+            Map<String, Long> summary = new LinkedHashMap<>();
+            summary.put("count", count());
+            summary.put("meanNanos", mean());
+            summary.put("p50Nanos", percentile(50));
+            summary.put("p99Nanos", percentile(99));
+            summary.put("maxNanos", max());
+            return summary;
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long bucketValue(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+            int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+
+    private static final class MetricsBean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            return counterValues();
+        }
+
+        @Override
+        public Map<String, Map<String, Long>> getHistograms() {
+            Map<String, Map<String, Long>> histograms = new TreeMap<>();
+            HISTOGRAMS.forEach((name, histogram) -> histograms.put(name, histogram.summary()));
+            return histograms;
+        }
+
+        @Override
+        public String getText() {
+            return toText();
+        }
+
+        @Override
+        public String getJson() {
+            return toJson();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package sudoku;
+
+import java.util.Map;
+
+// JMX view of Metrics, registered as sudoku:type=Metrics
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    // Per histogram: count, meanNanos, p50Nanos, p99Nanos, maxNanos
+    Map<String, Map<String, Long>> getHistograms();
+
+    String getText();
+
+    String getJson();
+}
@@ -0,0 +1,4 @@
+package sudoku;
+
+// Game modes: classic Sudoku, or Killer with cages whose digits add up to a given sum
+enum Mode { REGULAR, KILLER }
@@ -0,0 +1,60 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A generated game: the givens, the full solution and, for Killer, the cages.
+// The arrays are copied on construction so a puzzle never shares state with
+// the generator that produced it and can be handed between threads.
+final class Puzzle {
+    final Mode mode;
+    final Difficulty difficulty;
+    final Board board;
+    final Board solution;
+    final List<Cage> cages;
+    final CageIndex cageIndex;
+
+    Puzzle(Mode mode, Difficulty difficulty, Board board, Board solution, List<Cage> cages, CageIndex cageIndex) {
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.board = board.copy();
+        this.solution = solution.copy();
+        this.cages = Collections.unmodifiableList(new ArrayList<>(cages));
+        this.cageIndex = cageIndex;
+    }
+
+    // One-line text form: the givens (0 = blank), a space and the solution, one symbol per cell.
+    // Killer puzzles add a space and each cell's cage index as two hex digits.
+    String toLine() {
+        StringBuilder line = new StringBuilder(board.cellCount() * 4 + 2);
+        line.append(board).append(' ').append(solution);
+        appendCages(line);
+        return line.toString();
+    }
+
+    // What a player gets to see: the givens and, for Killer, the cage indexes as in
+    // toLine() followed by a space and the cage sums, comma-separated in cage order
+    String toPlayerLine() {
+        StringBuilder line = new StringBuilder(board.cellCount() * 4);
+        line.append(board);
+        appendCages(line);
+        if (cageIndex.cageCount() > 0) {
+            line.append(' ');
+            for (int cageId = 0; cageId < cageIndex.cageCount(); cageId++) {
+                line.append(cageId == 0 ? "" : ",").append(cageIndex.sum(cageId));
+            }
+        }
+        return line.toString();
+    }
+
+    private void appendCages(StringBuilder line) {
+        if (cageIndex.cageCount() > 0) {
+            line.append(' ');
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                int cageId = cageIndex.cageOf(cell);
+                line.append(Character.forDigit(cageId >> 4, 16)).append(Character.forDigit(cageId & 0xF, 16));
+            }
+        }
+    }
+}
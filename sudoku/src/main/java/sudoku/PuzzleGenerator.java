@@ -0,0 +1,348 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+// Builds solved grids, carves puzzles out of them and lays out Killer cages.
+// Each generator owns its board, solution and cage state, so one instance per
+// thread can generate in the background while the GUI plays another game.
+// Generation stops with a CancellationException once its thread is interrupted.
+class PuzzleGenerator {
+    // Told what the generator is working on; total is 0 when the stage is open-ended.
+    // Called on the generating thread, so listeners must be quick and thread-safe.
+    interface ProgressListener {
+        void progress(String stage, int done, int total);
+    }
+
+    public Board board = new Board();
+    public Board solution = new Board();
+    public boolean[][] cageAssigned = new boolean[9][9]; // Tracks cells already part of a cage
+    public List<Cage> cages = new ArrayList<>();
+    public CageIndex cageIndex = CageIndex.EMPTY;
+    public int generationAttempts = 0; // Solver nodes spent on grids and uniqueness checks so far
+    public SudokuSolver solver = new BitmaskSolver();
+    private BitmaskSolver largeSolver; // Solver for the current 16x16 or 25x25 size, made on first use
+    public KillerSolver killerSolver = new KillerSolver(); // Checks uniqueness against the cages
+    // Lays out Killer cages; tune its size weights and options before generating
+    public CagePartitioner cagePartitioner = new CagePartitioner();
+    Mode mode = Mode.REGULAR; // Mode of the puzzle being generated
+    public boolean symmetricRemoval = false; // Blank cells in 180-degree rotational pairs
+    public volatile ProgressListener progressListener; // Optional, e.g. a loading screen
+    // Regular 9x9 puzzles are regenerated until the grader puts them in the requested band
+    public boolean rated = true;
+    public Grader.Grade grade; // Grade of the last rated puzzle
+    private final Grader grader = new Grader();
+    private GridGenerator grids; // Solved grids of the current size, made on first use
+    Random random;
+
+    // Blanks attempted per difficulty when rating: singles-only puzzles still need a
+    // real number of blanks, and the harder bands only show up near minimal puzzles
+    static final int[] RATED_REMOVALS = {40, 81, 81, 81};
+
+    PuzzleGenerator() {
+        this(new Random());
+    }
+
+    PuzzleGenerator(Random random) {
+        this.random = random;
+    }
+
+    // Generates a fresh puzzle and returns a copy that no longer shares this generator's state
+    public Puzzle generate(Mode mode, Difficulty diff) {
+        return generate(Board.SIZE, mode, diff);
+    }
+
+    public Puzzle generate(int size, Mode mode, Difficulty diff) {
+        generateBoard(size, mode, diff);
+        return snapshot(diff);
+    }
+
+    // Copies the puzzle last generated out of this generator's working state
+    Puzzle snapshot(Difficulty diff) {
+        if (mode == Mode.KILLER) {
+            return new Puzzle(mode, diff, board, solution, cages, cageIndex);
+        }
+        return new Puzzle(mode, diff, board, solution, new ArrayList<>(), CageIndex.EMPTY);
+    }
+
+    public boolean solveBoard(Board board) {
+        SudokuSolver solver = solverFor(board.size());
+        // Count the placements this solve tried on top of any earlier ones
+        long nodesBefore = solver.getNodeCount();
+        long start = Metrics.startTimer();
+        boolean solved = solver.solve(board);
+        recordSearch(solver.getNodeCount() - nodesBefore, start);
+        return solved;
+    }
+
+    // Adds a search's nodes to generationAttempts and the solver metrics
+    private void recordSearch(long nodes, long start) {
+        Metrics.SOLVER_TIME.recordSince(start);
+        Metrics.SOLVER_NODES.add(nodes);
+        generationAttempts += (int) nodes;
+    }
+
+    public int countSolutions(Board board, int limit) {
+        return solverFor(board.size()).countSolutions(board, limit);
+    }
+
+    // The configured solver for classic boards, a size-specific bitmask solver otherwise
+    SudokuSolver solverFor(int size) {
+        if (size == Board.SIZE) {
+            return solver;
+        }
+        if (largeSolver == null || largeSolver.size() != size) {
+            largeSolver = new BitmaskSolver(size);
+        }
+        return largeSolver;
+    }
+
+    public void generateBoard(Mode mode, Difficulty diff) {
+        generateBoard(Board.SIZE, mode, diff);
+    }
+
+    public void generateBoard(int size, Mode mode, Difficulty diff) {
+        // A fresh seed grid per puzzle, so seeded puzzles don't depend on earlier ones
+        if (grids != null) {
+            grids.reseed();
+        }
+        if (size != Board.SIZE) {
+            if (mode == Mode.KILLER) {
+                throw new IllegalArgumentException("Killer puzzles are only available on 9x9 boards");
+            }
+            generateLargeBoard(size, diff);
+            return;
+        }
+        this.mode = mode;
+        long start = Metrics.startTimer();
+        useSize(Board.SIZE);
+        if (mode == Mode.REGULAR && rated) {
+            int candidates = 1;
+            while (!generateRatedCandidate(diff)) {
+                Metrics.RATING_REJECTS.increment();
+                report("Rating candidates", candidates++, 0);
+            }
+            Metrics.GENERATION_TIME.recordSince(start);
+            return;
+        }
+        fillSolution();
+        // Save the generated puzzle to solution (since it's assumed to be valid now)
+        board.copyFrom(solution);
+        // Depending on mode and difficulty, remove numbers to create the puzzle
+        if (mode == Mode.REGULAR) {
+            switch (diff) {
+                case EASY:
+                    // Remove cells to match easy difficulty
+                    removeCellsForDifficulty(5, board);
+                    break;
+                case MEDIUM:
+                    removeCellsForDifficulty(15, board);
+                    break;
+                case HARD:
+                    removeCellsForDifficulty(30, board);
+                    break;
+                case EXTREME:
+                    removeCellsForDifficulty(40, board);
+                    break;
+            }
+        }
+        if (mode == Mode.KILLER) {
+            generateCages();
+            switch (diff) {
+                case EASY:
+                    // Remove cells to match easy difficulty
+                    removeCellsForDifficulty(5, board);
+                    break;
+                case MEDIUM:
+                    removeCellsForDifficulty(30, board);
+                    break;
+                case HARD:
+                    removeCellsForDifficulty(40, board);
+                    break;
+                case EXTREME:
+                    removeCellsForDifficulty(50, board);
+                    break;
+            }
+        }
+        Metrics.GENERATION_TIME.recordSince(start);
+    }
+
+    // One rated attempt: fill a grid, blank it and grade it; true if it landed in diff's band
+    public boolean generateRatedCandidate(Difficulty diff) {
+        this.mode = Mode.REGULAR;
+        useSize(Board.SIZE);
+        fillSolution();
+        board.copyFrom(solution);
+        removeCellsForDifficulty(RATED_REMOVALS[diff.ordinal()], board);
+        grade = grader.grade(board);
+        return grade.difficulty() == diff;
+    }
+
+    // Fills solution with a random complete grid of the current size
+    private void fillSolution() {
+        checkCancelled();
+        report("Filling grid", 0, 0);
+        if (grids == null || grids.size() != solution.size()) {
+            grids = new GridGenerator(solution.size(), random);
+        }
+        long nodesBefore = grids.seedNodes();
+        long start = Metrics.startTimer();
+        grids.next(solution);
+        recordSearch(grids.seedNodes() - nodesBefore, start);
+        board.clear();
+    }
+
+    // 16x16 and 25x25: fill a grid, then blank the same share of cells as the 9x9
+    // difficulty would
+    private void generateLargeBoard(int size, Difficulty diff) {
+        this.mode = Mode.REGULAR;
+        long start = Metrics.startTimer();
+        useSize(size);
+        fillSolution();
+        board.copyFrom(solution);
+        int[] classicRemovals = {5, 15, 30, 40};
+        removeCellsForDifficulty(classicRemovals[diff.ordinal()] * board.cellCount() / Board.CELLS, board);
+        Metrics.GENERATION_TIME.recordSince(start);
+    }
+
+    private void report(String stage, int done, int total) {
+        ProgressListener listener = progressListener;
+        if (listener != null) {
+            listener.progress(stage, done, total);
+        }
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Puzzle generation interrupted");
+        }
+    }
+
+    // Swaps in boards of the requested size; callers sharing the old boards keep the old size
+    private void useSize(int size) {
+        if (board.size() != size) {
+            board = new Board(size);
+            solution = new Board(size);
+        }
+    }
+
+    public int removeCellsForDifficulty(int cellsToRemove, Board board) {
+        // Visit every cell once in random order (paired with its mirror cell when symmetric)
+        int cellCount = board.cellCount();
+        int[] order = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            order[i] = i;
+        }
+        for (int i = cellCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        int count = 0;
+        for (int i = 0; i < cellCount && count < cellsToRemove; i++) {
+            checkCancelled();
+            report("Removing cells", i, cellCount);
+            int cell = order[i];
+            int mirror = cellCount - 1 - cell;
+            if (board.get(cell) == 0) {
+                continue;
+            }
+            // Blank the mirror cell too, unless that would overshoot the target
+            boolean withMirror = symmetricRemoval && mirror != cell
+                    && board.get(mirror) != 0 && count + 2 <= cellsToRemove;
+
+            int value = board.get(cell);
+            int mirrorValue = board.get(mirror);
+            board.set(cell, 0);
+            if (withMirror) {
+                board.set(mirror, 0);
+            }
+
+            // Keep the removal only if the puzzle still has exactly one solution.
+            // Killer cage sums pin down cells too, so those puzzles are checked with the cages.
+            // Big boards cap the check and treat a check that runs out as ambiguous.
+            SudokuSolver checker = mode == Mode.KILLER ? killerSolver : solverFor(board.size());
+            if (isUnique(checker, board)) {
+                count += withMirror ? 2 : 1;
+            } else {
+                board.set(cell, value);
+                board.set(mirror, mirrorValue);
+                Metrics.REMOVAL_RETRIES.increment();
+            }
+        }
+        return count;
+    }
+
+    private boolean isUnique(SudokuSolver checker, Board board) {
+        long nodesBefore = checker.getNodeCount();
+        long start = Metrics.startTimer();
+        if (board.size() == Board.SIZE) {
+            int solutions = checker.countSolutions(board, 2);
+            recordSearch(checker.getNodeCount() - nodesBefore, start);
+            // An interrupted search stops early, so a count of 1 proves nothing
+            checkCancelled();
+            return solutions == 1;
+        }
+        BitmaskSolver capped = (BitmaskSolver) checker;
+        capped.nodeLimit = 10L * board.cellCount();
+        try {
+            return capped.countSolutions(board, 2) == 1 && !capped.hitNodeLimit();
+        } finally {
+            capped.nodeLimit = Long.MAX_VALUE;
+            recordSearch(checker.getNodeCount() - nodesBefore, start);
+        }
+    }
+
+    public void generateCages() {
+        long start = Metrics.startTimer();
+
+        // Clear any existing cages
+        cages.clear();
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                cageAssigned[i][j] = false;
+            }
+        }
+
+        // The partitioner works on int arrays; the Cage lists are built once from its result.
+        // It draws from the generator's own Random so seeded runs stay reproducible.
+        int cageCount = cagePartitioner.partition(solution, random);
+        for (int id = 0; id < cageCount; id++) {
+            cages.add(new Cage());
+        }
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            assignCellToCage(cell / 9, cell % 9, cages.get(cagePartitioner.cageOf(cell)));
+        }
+
+        report("Laying out cages", cages.size(), 0);
+        // Index the finished layout once so cage lookups never rescan the lists
+        cageIndex = CageIndex.build(cages, solution);
+        killerSolver.setCages(cageIndex);
+        Metrics.CAGE_GENERATION_TIME.recordSince(start);
+    }
+
+    public void assignCellToCage(int row, int col, Cage cage) {
+        cage.addCell(row, col);
+        cageAssigned[row][col] = true;
+    }
+
+    public List<int[]> getUnassignedNeighbors(int row, int col) {
+        List<int[]> neighbors = new ArrayList<>();
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // Up, Down, Left, Right
+
+        for (int[] dir : directions) {
+            int newRow = row + dir[0];
+            int newCol = col + dir[1];
+
+            // Check bounds and unassigned status
+            if (newRow >= 0 && newRow < 9 && newCol >= 0 && newCol < 9 && !cageAssigned[newRow][newCol]) {
+                neighbors.add(new int[]{newRow, newCol});
+            }
+        }
+        return neighbors;
+    }
+}
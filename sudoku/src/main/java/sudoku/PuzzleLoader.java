@@ -0,0 +1,95 @@
+package sudoku;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Generates one puzzle in the background for a caller that is waiting on it, such as
+// the loading screen. Every attempt gets a fresh seed and a time budget; an attempt
+// that overruns it is interrupted and replaced instead of being left to backtrack.
+// Cancelling the returned future interrupts whichever attempt is running. Rated
+// regular 9x9 puzzles are raced on every core by a RatedGenerator, made on first use.
+class PuzzleLoader {
+    private final ExecutorService executor = ThreadPools.perTaskExecutor("puzzle-loader");
+    private final Random seeds = new Random();
+    private final long attemptMillis;
+    private RatedGenerator ratedGenerator;
+
+    PuzzleLoader(long attemptMillis) {
+        this.attemptMillis = attemptMillis;
+    }
+
+    // The attempt budget can be tuned with -Dsudoku.generation.timeoutMillis
+    static PuzzleLoader fromSystemProperties() {
+        return new PuzzleLoader(Long.getLong("sudoku.generation.timeoutMillis", 3000));
+    }
+
+    public CompletableFuture<Puzzle> load(int size, Mode mode, Difficulty diff, PuzzleGenerator.ProgressListener listener) {
+        CompletableFuture<Puzzle> result = new CompletableFuture<>();
+        Future<?> supervisor = executor.submit(() -> {
+            try {
+                result.complete(generateWithRestarts(size, mode, diff, listener));
+            } catch (InterruptedException | CancellationException e) {
+                result.cancel(false);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // Cancelling the result stops the supervisor and, through it, the running attempt
+        result.whenComplete((puzzle, error) -> {
+            if (result.isCancelled()) {
+                supervisor.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private Puzzle generateWithRestarts(int size, Mode mode, Difficulty diff, PuzzleGenerator.ProgressListener listener)
+            throws InterruptedException, ExecutionException {
+        for (int attempt = 1; ; attempt++) {
+            PuzzleGenerator generator = new PuzzleGenerator(new Random(nextSeed()));
+            generator.progressListener = listener;
+            Future<Puzzle> running = executor.submit(() -> size == Board.SIZE && mode == Mode.REGULAR
+                    ? ratedGenerator().generate(diff, listener)
+                    : generator.generate(size, mode, diff));
+            try {
+                return running.get(attemptMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                generator.progressListener = null; // Don't let the abandoned attempt report any more
+                running.cancel(true);
+                Metrics.GENERATION_TIMEOUTS.increment();
+                if (listener != null) {
+                    listener.progress("Taking too long, restarting (attempt " + (attempt + 1) + ")", 0, 0);
+                }
+            } catch (InterruptedException e) {
+                running.cancel(true);
+                throw e;
+            }
+        }
+    }
+
+    private synchronized RatedGenerator ratedGenerator() {
+        if (ratedGenerator == null) {
+            ratedGenerator = new RatedGenerator(Runtime.getRuntime().availableProcessors());
+        }
+        return ratedGenerator;
+    }
+
+    private synchronized long nextSeed() {
+        return seeds.nextLong();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (ratedGenerator != null) {
+                ratedGenerator.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps a few ready-made puzzles for every (size, Mode, Difficulty) so starting
+// a game is a queue poll instead of a solver run on the event thread.
+// When a bucket drops to the low watermark a background worker tops it back up
+// to the high watermark. Buckets never hold more than highWatermark puzzles,
+// and an empty bucket falls back to generating on the caller's thread.
+// Only the 9x9 buckets are prefilled; 16x16 and 25x25 fill up after their first take.
+class PuzzlePool {
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final List<ArrayBlockingQueue<Puzzle>> buckets = new ArrayList<>();
+    private final List<AtomicBoolean> refilling = new ArrayList<>();
+    private final ExecutorService workers;
+    // Generators aren't thread-safe, so each worker (and each synchronous caller) gets its own
+    private final ThreadLocal<PuzzleGenerator> generators = ThreadLocal.withInitial(PuzzleGenerator::new);
+    // Races every core for a rated puzzle when a regular 9x9 bucket is empty; made on first use
+    private RatedGenerator ratedGenerator;
+
+    PuzzlePool(int lowWatermark, int highWatermark, int workerCount) {
+        if (lowWatermark < 0 || highWatermark < 1 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Need 0 <= low < high, got low=" + lowWatermark + " high=" + highWatermark);
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        for (int i = 0; i < Board.SUPPORTED_SIZES.length * Mode.values().length * Difficulty.values().length; i++) {
+            buckets.add(new ArrayBlockingQueue<>(highWatermark));
+            refilling.add(new AtomicBoolean(false));
+        }
+        workers = Executors.newFixedThreadPool(workerCount, task -> {
+            Thread thread = new Thread(task, "puzzle-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // Stay out of the way of the GUI
+            return thread;
+        });
+    }
+
+    // Watermarks and worker count can be tuned with -Dsudoku.pool.low, .high and .workers
+    static PuzzlePool fromSystemProperties() {
+        int low = Integer.getInteger("sudoku.pool.low", 2);
+        int high = Integer.getInteger("sudoku.pool.high", 5);
+        int workerCount = Integer.getInteger("sudoku.pool.workers",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        return new PuzzlePool(low, high, workerCount);
+    }
+
+    // Starts filling every 9x9 bucket in the background
+    public void prefill() {
+        for (Mode mode : Mode.values()) {
+            for (Difficulty diff : Difficulty.values()) {
+                scheduleRefill(bucketIndex(Board.SIZE, mode, diff));
+            }
+        }
+    }
+
+    public Puzzle take(Mode mode, Difficulty diff) {
+        return take(Board.SIZE, mode, diff);
+    }
+
+    // Returns a ready puzzle, or generates one right away if the bucket is empty
+    public Puzzle take(int size, Mode mode, Difficulty diff) {
+        Puzzle puzzle = poll(size, mode, diff);
+        if (puzzle == null && size == Board.SIZE && mode == Mode.REGULAR) {
+            puzzle = ratedGenerator().generate(diff);
+        }
+        if (puzzle == null) {
+            puzzle = generators.get().generate(size, mode, diff);
+        }
+        return puzzle;
+    }
+
+    // Returns a ready puzzle, or null if the bucket is empty; never generates on the caller's thread
+    public Puzzle poll(int size, Mode mode, Difficulty diff) {
+        if (size != Board.SIZE && mode == Mode.KILLER) {
+            throw new IllegalArgumentException("Killer puzzles are only available on 9x9 boards");
+        }
+        int index = bucketIndex(size, mode, diff);
+        ArrayBlockingQueue<Puzzle> bucket = buckets.get(index);
+        Puzzle puzzle = bucket.poll();
+        if (bucket.size() <= lowWatermark) {
+            scheduleRefill(index);
+        }
+        return puzzle;
+    }
+
+    public int available(int size, Mode mode, Difficulty diff) {
+        return buckets.get(bucketIndex(size, mode, diff)).size();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        synchronized (this) {
+            if (ratedGenerator != null) {
+                ratedGenerator.shutdown();
+            }
+        }
+    }
+
+    private synchronized RatedGenerator ratedGenerator() {
+        if (ratedGenerator == null) {
+            ratedGenerator = new RatedGenerator(Runtime.getRuntime().availableProcessors());
+        }
+        return ratedGenerator;
+    }
+
+    private int bucketIndex(int size, Mode mode, Difficulty diff) {
+        for (int sizeIndex = 0; sizeIndex < Board.SUPPORTED_SIZES.length; sizeIndex++) {
+            if (Board.SUPPORTED_SIZES[sizeIndex] == size) {
+                return (sizeIndex * Mode.values().length + mode.ordinal()) * Difficulty.values().length + diff.ordinal();
+            }
+        }
+        throw new IllegalArgumentException("Unsupported board size: " + size);
+    }
+
+    private void scheduleRefill(int index) {
+        // At most one refill task per bucket at a time
+        if (refilling.get(index).compareAndSet(false, true)) {
+            workers.execute(() -> refill(index));
+        }
+    }
+
+    private void refill(int index) {
+        int modeIndex = index / Difficulty.values().length;
+        int size = Board.SUPPORTED_SIZES[modeIndex / Mode.values().length];
+        Mode mode = Mode.values()[modeIndex % Mode.values().length];
+        Difficulty diff = Difficulty.values()[index % Difficulty.values().length];
+        ArrayBlockingQueue<Puzzle> bucket = buckets.get(index);
+        try {
+            PuzzleGenerator generator = generators.get();
+            while (bucket.size() < highWatermark && !Thread.currentThread().isInterrupted()) {
+                if (!bucket.offer(generator.generate(size, mode, diff))) {
+                    break; // Filled up by someone else meanwhile
+                }
+            }
+        } catch (CancellationException e) {
+            return; // Shut down in the middle of a puzzle
+        } finally {
+            refilling.get(index).set(false);
+        }
+        // A take may have drained the bucket after the last size check
+        if (bucket.size() <= lowWatermark && !workers.isShutdown()) {
+            scheduleRefill(index);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Serves puzzles over plain-text HTTP so many clients on one machine can share a
+// single generator process instead of each generating their own:
+//
+//   java Sudoku --serve [--port 8080] [--host 127.0.0.1] [--store pack.sdk] [--idle-minutes 30]
+//
+//   GET  /puzzle?mode=killer&difficulty=hard[&size=9]
+//        -> "<id> " + Puzzle.toPlayerLine(): the givens and, for Killer, cages and sums
+//   GET  /move?id=<id>&cell=<0-based cell>&value=<digit, 0 to clear>
+//        -> "correct <mistakes>", "wrong <mistakes>" or "cleared <mistakes>"
+//   POST /solution?id=<id>, optional body: the grid, one symbol per cell ('0' or '.' for blanks)
+//        -> "solved", "wrong <cells>" or "incomplete <cells left>"
+//
+// Puzzles come from the --store pack when it has the kind asked for, otherwise from a
+// PuzzlePool (generating on the request's thread when its bucket is empty). Every
+// puzzle handed out starts a game in a SessionManager: moves are played into it and
+// counted as mistakes there, and a submitted grid is played in before the game's
+// state is reported, so /solution with no body just reports it. Games untouched for
+// --idle-minutes are evicted by the manager's sweeper; their ids then get 404. Every
+// request runs on its own thread from ThreadPools.perTaskExecutor, virtual where the
+// JDK has them. Errors are 4xx with a one-line reason.
+final class PuzzleServer {
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY = 1024; // Bytes; a 25x25 grid is 625
+
+    static {
+        // The JDK server closes kept-alive connections beyond 200 idle ones. A client
+        // that already picked such a connection for a POST gets an error rather than a
+        // retry, so with thousands of players keep as many idle connections as it queues.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG));
+        }
+    }
+
+    private static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Endpoint {
+        String respond(HttpExchange exchange) throws IOException, HttpError;
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final PuzzlePool pool;
+    private final PuzzleStore store; // May be null
+    private final SessionManager sessions;
+
+    PuzzleServer(InetSocketAddress address, PuzzlePool pool, PuzzleStore store, long idleMillis) throws IOException {
+        if (idleMillis < 1) {
+            throw new IllegalArgumentException("Idle timeout must be positive, got " + idleMillis);
+        }
+        this.pool = pool;
+        this.store = store;
+        this.sessions = new SessionManager(idleMillis);
+        this.executor = ThreadPools.perTaskExecutor("puzzle-server");
+        this.http = HttpServer.create(address, BACKLOG);
+        http.setExecutor(executor);
+        http.createContext("/puzzle", exchange -> serve(exchange, "GET", this::puzzle));
+        http.createContext("/move", exchange -> serve(exchange, "GET", this::move));
+        http.createContext("/solution", exchange -> serve(exchange, "POST", this::solution));
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = "127.0.0.1";
+        int port = 8080;
+        String storePath = null;
+        long idleMinutes = 30;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--host":
+                    host = BatchGenerator.require(args[i], value);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--store":
+                    storePath = BatchGenerator.require(args[i], value);
+                    break;
+                case "--idle-minutes":
+                    idleMinutes = Long.parseLong(BatchGenerator.require(args[i], value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+        PuzzleStore store = storePath == null ? null : PuzzleStore.open(Paths.get(storePath));
+        PuzzlePool pool = PuzzlePool.fromSystemProperties();
+        pool.prefill();
+        PuzzleServer server = new PuzzleServer(new InetSocketAddress(host, port), pool, store,
+                TimeUnit.MINUTES.toMillis(idleMinutes));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            pool.shutdown();
+        }));
+        System.err.println("Serving puzzles on http://" + host + ":" + server.port()
+                + (store != null ? " from " + storePath + " (" + store.count() + " puzzles)" : ""));
+    }
+
+    void start() {
+        http.start();
+        sessions.startSweeper(Math.min(sessions.idleMillis(), 60_000));
+    }
+
+    // Stops taking requests, ends the request threads and the sweeper; the pool is left to its owner
+    void stop() {
+        http.stop(0);
+        executor.shutdownNow();
+        sessions.close();
+    }
+
+    int port() {
+        return http.getAddress().getPort();
+    }
+
+    private String puzzle(HttpExchange exchange) throws HttpError {
+        Map<String, String> query = query(exchange);
+        Mode mode = parseEnum(Mode.class, query.getOrDefault("mode", "regular"));
+        Difficulty diff = parseEnum(Difficulty.class, query.getOrDefault("difficulty", "easy"));
+        int size = parseInt(query.getOrDefault("size", String.valueOf(Board.SIZE)), "size");
+        if (!isSupported(size)) {
+            throw new HttpError(400, "Unsupported size: " + size);
+        }
+        if (size != Board.SIZE && mode == Mode.KILLER) {
+            throw new HttpError(400, "Killer puzzles are only available on 9x9 boards");
+        }
+        Puzzle puzzle = null;
+        if (store != null && size == Board.SIZE) {
+            puzzle = store.random(mode, diff, ThreadLocalRandom.current());
+        }
+        if (puzzle == null) {
+            puzzle = pool.take(size, mode, diff);
+        }
+        return sessions.start(puzzle).id + " " + puzzle.toPlayerLine();
+    }
+
+    private String move(HttpExchange exchange) throws HttpError {
+        Map<String, String> query = query(exchange);
+        SessionManager.Session session = sessionOf(query);
+        int cell = parseInt(query.get("cell"), "cell");
+        int value = parseInt(query.get("value"), "value");
+        int size = session.size();
+        if (cell < 0 || cell >= size * size || value < 0 || value > size) {
+            throw new HttpError(400, "Cell or value out of range");
+        }
+        if (session.isGiven(cell)) {
+            throw new HttpError(400, "Cell " + cell + " is a given");
+        }
+        boolean mistake = session.play(cell, value);
+        return (value == 0 ? "cleared " : mistake ? "wrong " : "correct ") + session.mistakes();
+    }
+
+    private String solution(HttpExchange exchange) throws IOException, HttpError {
+        SessionManager.Session session = sessionOf(query(exchange));
+        int size = session.size();
+        int cellCount = size * size;
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY + 1);
+        }
+        if (body.length > MAX_BODY) {
+            throw new HttpError(413, "Grid too long");
+        }
+        byte[] grid = new byte[cellCount];
+        int cells = 0;
+        for (byte b : body) {
+            if (b == '\n' || b == '\r' || b == ' ') {
+                continue;
+            }
+            int value = b == '.' ? 0 : Board.valueOf((char) b);
+            if (value < 0 || value > size || cells == cellCount) {
+                throw new HttpError(400, "Expected " + cellCount + " cells of 1-"
+                        + Board.symbol(size) + ", '0' or '.'");
+            }
+            if (session.isGiven(cells) && value != session.get(cells)) {
+                throw new HttpError(400, "Cell " + cells + " is a given");
+            }
+            grid[cells++] = (byte) value;
+        }
+        if (cells != 0 && cells != cellCount) {
+            throw new HttpError(400, "Expected " + cellCount + " cells, got " + cells);
+        }
+        // Cells that differ from the game are played in, so they count as moves and mistakes
+        for (int cell = 0; cell < cells; cell++) {
+            if (!session.isGiven(cell) && grid[cell] != session.get(cell)) {
+                session.play(cell, grid[cell]);
+            }
+        }
+        int wrong = session.wrong();
+        return wrong > 0 ? "wrong " + wrong : session.isSolved() ? "solved" : "incomplete " + session.remaining();
+    }
+
+    private SessionManager.Session sessionOf(Map<String, String> query) throws HttpError {
+        String idText = query.get("id");
+        long id;
+        try {
+            id = Long.parseLong(idText == null ? "" : idText);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Missing or bad id");
+        }
+        SessionManager.Session session = sessions.get(id);
+        if (session == null) {
+            throw new HttpError(404, "Unknown or expired puzzle id " + id);
+        }
+        return session;
+    }
+
+    private void serve(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        long start = Metrics.startTimer();
+        int status = 200;
+        String body;
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                throw new HttpError(405, "Use " + method);
+            }
+            body = endpoint.respond(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            body = e.getMessage();
+        } catch (RuntimeException e) {
+            status = 500;
+            body = "Internal error";
+            System.err.println("Request " + exchange.getRequestURI() + " failed: " + e);
+        }
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } finally {
+            exchange.close();
+            Metrics.REQUEST_TIME.recordSince(start);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) throws HttpError {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + value);
+        }
+    }
+
+    private static int parseInt(String value, String name) throws HttpError {
+        try {
+            return Integer.parseInt(value == null ? "" : value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Missing or bad " + name);
+        }
+    }
+
+    private static boolean isSupported(int size) {
+        for (int supported : Board.SUPPORTED_SIZES) {
+            if (supported == size) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,297 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// A pack of 9x9 puzzles on disk, read through one MappedByteBuffer so picking a
+// puzzle is a few absolute reads no matter how big the pack is.
+//
+//   header   magic, version, record size, record count and a record count per
+//            (Mode, Difficulty) bucket
+//   records  RECORD_BYTES each: packed givens, packed solution, cage layout as two
+//            "same cage as the cell right / below" bits per cell, mode and
+//            difficulty, and the grade (0 = unrated, else technique ordinal + 1,
+//            then score and steps)
+//   index    record numbers grouped by bucket, in bucket order
+//
+// Cage layouts are stored as CageIndex join bits (see writeJoins).
+// Reads are thread-safe. Packs are limited to what one buffer can map (2 GB, about
+// 19 million puzzles). Use Writer to create or append to a pack.
+final class PuzzleStore {
+    static final int MAGIC = 0x53444B50; // "SDKP"
+    static final int VERSION = 1;
+    static final int BUCKETS = Mode.values().length * Difficulty.values().length;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 2 * Board.PACKED_BYTES + CageIndex.JOIN_BYTES + 6;
+
+    // Offsets inside a record
+    private static final int GIVENS = 0;
+    private static final int SOLUTION = Board.PACKED_BYTES;
+    private static final int CAGES = 2 * Board.PACKED_BYTES;
+    private static final int KIND = CAGES + CageIndex.JOIN_BYTES;
+    private static final int TECHNIQUE = KIND + 1;
+    private static final int SCORE = KIND + 2;
+    private static final int STEPS = KIND + 4;
+
+    private final MappedByteBuffer buffer;
+    private final int recordCount;
+    private final int[] bucketCounts = new int[BUCKETS];
+    private final int[] bucketStarts = new int[BUCKETS]; // Byte offset of each bucket's index entries
+
+    private PuzzleStore(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        this.recordCount = readHeader(buffer, bucketCounts);
+        int offset = HEADER_BYTES + recordCount * RECORD_BYTES;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketStarts[bucket] = offset;
+            offset += 4 * bucketCounts[bucket];
+        }
+        if (offset > buffer.capacity()) {
+            throw new IOException("Puzzle store is truncated: index ends at " + offset + " of " + buffer.capacity());
+        }
+    }
+
+    static PuzzleStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Puzzle store too large to map: " + channel.size() + " bytes");
+            }
+            // The mapping stays valid after the channel is closed
+            return new PuzzleStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int count() {
+        return recordCount;
+    }
+
+    int count(Mode mode, Difficulty diff) {
+        return bucketCounts[bucketOf(mode, diff)];
+    }
+
+    // Record number of a uniformly random puzzle of this kind, or -1 if there is none
+    int pick(Mode mode, Difficulty diff, Random random) {
+        int bucket = bucketOf(mode, diff);
+        if (bucketCounts[bucket] == 0) {
+            return -1;
+        }
+        return buffer.getInt(bucketStarts[bucket] + 4 * random.nextInt(bucketCounts[bucket]));
+    }
+
+    // A random puzzle of this kind, or null if the pack has none
+    Puzzle random(Mode mode, Difficulty diff, Random random) {
+        int record = pick(mode, diff, random);
+        return record == -1 ? null : get(record);
+    }
+
+    Puzzle get(int record) {
+        int base = recordOffset(record);
+        byte[] packed = new byte[2 * Board.PACKED_BYTES];
+        buffer.get(base + GIVENS, packed, 0, packed.length);
+        Board board = Board.unpack(packed, 0);
+        Board solution = Board.unpack(packed, Board.PACKED_BYTES);
+        int kind = buffer.get(base + KIND);
+        Mode mode = Mode.values()[kind >> 4];
+        Difficulty diff = Difficulty.values()[kind & 0xF];
+        if (mode != Mode.KILLER) {
+            return new Puzzle(mode, diff, board, solution, new ArrayList<>(), CageIndex.EMPTY);
+        }
+        byte[] joins = new byte[CageIndex.JOIN_BYTES];
+        buffer.get(base + CAGES, joins, 0, joins.length);
+        List<Cage> cages = CageIndex.cagesFromJoins(joins, 0);
+        return new Puzzle(mode, diff, board, solution, cages, CageIndex.build(cages, solution));
+    }
+
+    // The stored grade, or null when the puzzle was written unrated
+    Grader.Grade grade(int record) {
+        int base = recordOffset(record);
+        int technique = buffer.get(base + TECHNIQUE) & 0xFF;
+        if (technique == 0) {
+            return null;
+        }
+        return new Grader.Grade(Grader.Technique.values()[technique - 1],
+                buffer.getChar(base + SCORE), buffer.getChar(base + STEPS));
+    }
+
+    private int recordOffset(int record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + recordCount);
+        }
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+
+    static int bucketOf(Mode mode, Difficulty diff) {
+        return mode.ordinal() * Difficulty.values().length + diff.ordinal();
+    }
+
+    // Returns the record count and fills in the bucket counts
+    private static int readHeader(ByteBuffer header, int[] bucketCounts) throws IOException {
+        if (header.capacity() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle store");
+        }
+        if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_BYTES) {
+            throw new IOException("Unsupported puzzle store version " + header.getShort(4)
+                    + " with " + header.getShort(6) + "-byte records");
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketCounts[bucket] = header.getInt(12 + 4 * bucket);
+        }
+        return header.getInt(8);
+    }
+
+    // Appends puzzles to a new or existing pack. Records are written as they come;
+    // the index and header only on close(), so until then the file isn't a valid pack.
+    // An existing pack's magic is zeroed on disk before new records overwrite its old
+    // index, and written back only once the new index is on disk, so a crash or error
+    // mid-append leaves a file open() rejects rather than one with a garbage index.
+    // Not thread-safe.
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 1024);
+        private final byte[] record = new byte[RECORD_BYTES];
+        private final int[][] buckets = new int[BUCKETS][];
+        private final int[] bucketCounts = new int[BUCKETS];
+        private final Grader grader = new Grader();
+        private int recordCount;
+        private long position;
+
+        private Writer(FileChannel channel) throws IOException {
+            this.channel = channel;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                buckets[bucket] = new int[16];
+            }
+            if (channel.size() == 0) {
+                position = HEADER_BYTES;
+                return;
+            }
+            // Existing pack: keep its index in memory and write new records over it
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            int[] counts = new int[BUCKETS];
+            recordCount = readHeader(header, counts);
+            position = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+            ByteBuffer index = ByteBuffer.allocate(4 * recordCount);
+            while (index.hasRemaining() && channel.read(index, position + index.position()) > 0) {
+                // Keep reading until the whole index is in
+            }
+            if (index.hasRemaining()) {
+                throw new IOException("Puzzle store is truncated");
+            }
+            index.flip();
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                for (int i = 0; i < counts[bucket]; i++) {
+                    addToBucket(bucket, index.getInt());
+                }
+            }
+            writeFully(ByteBuffer.allocate(4), 0);
+            channel.force(false);
+        }
+
+        static Writer open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Writer(channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        // Regular puzzles are graded here; Killer puzzles are stored unrated
+        void add(Puzzle puzzle) throws IOException {
+            add(puzzle, puzzle.mode == Mode.REGULAR ? grader.grade(puzzle.board) : null);
+        }
+
+        void add(Puzzle puzzle, Grader.Grade grade) throws IOException {
+            if (puzzle.board.size() != Board.SIZE) {
+                throw new IllegalArgumentException("Puzzle stores only hold 9x9 puzzles");
+            }
+            if (HEADER_BYTES + (recordCount + 1L) * (RECORD_BYTES + 4) > Integer.MAX_VALUE) {
+                throw new IOException("Puzzle store is full: " + recordCount + " puzzles");
+            }
+            Arrays.fill(record, (byte) 0);
+            puzzle.board.writePacked(record, GIVENS);
+            puzzle.solution.writePacked(record, SOLUTION);
+            puzzle.cageIndex.writeJoins(record, CAGES);
+            record[KIND] = (byte) (puzzle.mode.ordinal() << 4 | puzzle.difficulty.ordinal());
+            if (grade != null) {
+                record[TECHNIQUE] = (byte) (grade.hardest.ordinal() + 1);
+                putChar(record, SCORE, Math.min(grade.score, Character.MAX_VALUE));
+                putChar(record, STEPS, Math.min(grade.steps, Character.MAX_VALUE));
+            }
+
+            if (!records.hasRemaining()) {
+                flush();
+            }
+            records.put(record);
+            addToBucket(bucketOf(puzzle.mode, puzzle.difficulty), recordCount++);
+        }
+
+        int count() {
+            return recordCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer index = ByteBuffer.allocate(4 * recordCount);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(0, MAGIC);
+                header.putShort(4, (short) VERSION);
+                header.putShort(6, (short) RECORD_BYTES);
+                header.putInt(8, recordCount);
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    header.putInt(12 + 4 * bucket, bucketCounts[bucket]);
+                    for (int i = 0; i < bucketCounts[bucket]; i++) {
+                        index.putInt(buckets[bucket][i]);
+                    }
+                }
+                index.flip();
+                writeFully(index, position);
+                channel.truncate(position + 4L * recordCount);
+                channel.force(false);
+                writeFully(header, 0);
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void flush() throws IOException {
+            records.flip();
+            int length = records.remaining();
+            writeFully(records, position);
+            position += length;
+            records.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes, long at) throws IOException {
+            while (bytes.hasRemaining()) {
+                at += channel.write(bytes, at);
+            }
+        }
+
+        private void addToBucket(int bucket, int record) {
+            if (bucketCounts[bucket] == buckets[bucket].length) {
+                buckets[bucket] = Arrays.copyOf(buckets[bucket], buckets[bucket].length * 2);
+            }
+            buckets[bucket][bucketCounts[bucket]++] = record;
+        }
+
+        private static void putChar(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte) (value >> 8);
+            bytes[offset + 1] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Finds one regular 9x9 puzzle in a difficulty band by racing a generator on every
+// thread: each keeps making graded candidates until any of them lands in the band,
+// then the rest stop after their current attempt. Used when a caller is waiting
+// for a puzzle right now: the pool ran dry, or the loading screen is up. If the
+// caller is interrupted the racers stop too and generate() returns null.
+class RatedGenerator {
+    private final ForkJoinPool pool;
+    private final int threads;
+    // Generators aren't thread-safe, so each worker gets its own
+    private final ThreadLocal<PuzzleGenerator> generators = ThreadLocal.withInitial(PuzzleGenerator::new);
+
+    RatedGenerator(int threads) {
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public Puzzle generate(Difficulty diff) {
+        return generate(diff, null);
+    }
+
+    // The listener, if any, hears the number of candidates rejected so far, from every racer
+    public Puzzle generate(Difficulty diff, PuzzleGenerator.ProgressListener listener) {
+        AtomicReference<Puzzle> found = new AtomicReference<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger rejected = new AtomicInteger();
+        List<ForkJoinTask<?>> racers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            racers.add(pool.submit(() -> {
+                PuzzleGenerator generator = generators.get();
+                while (found.get() == null && !stop.get() && !Thread.currentThread().isInterrupted()) {
+                    if (generator.generateRatedCandidate(diff)) {
+                        found.compareAndSet(null, generator.snapshot(diff));
+                    } else {
+                        Metrics.RATING_REJECTS.increment();
+                        if (listener != null && !stop.get()) {
+                            listener.progress("Rating candidates", rejected.incrementAndGet(), 0);
+                        }
+                    }
+                }
+            }));
+        }
+        try {
+            for (ForkJoinTask<?> racer : racers) {
+                racer.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            stop.set(true);
+        }
+        return found.get();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
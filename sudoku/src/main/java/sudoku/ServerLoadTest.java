@@ -0,0 +1,246 @@
+package sudoku;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for PuzzleServer. Every client is a player on its own thread: for each of
+// --games games it fetches a puzzle, plays --moves guesses on blank cells and submits
+// the grid with only the right guesses, which clears the wrong ones. All clients start
+// together and keep their connections open between requests. The exact latency of
+// every request is kept, so the p50/p99 printed per endpoint are not bucketed.
+//
+//   java -cp sudoku.jar sudoku.ServerLoadTest [--url http://127.0.0.1:8080] [--clients 2000]
+//       [--games 5] [--moves 5] [--mode killer] [--difficulty hard] [--store pack.sdk]
+//
+// Without --url a server is started in this JVM on a free port, serving from --store
+// when given. Then the numbers include the clients' own CPU use, so run it against a
+// separate server process for anything beyond a smoke test.
+final class ServerLoadTest {
+    private static final int PUZZLE = 0;
+    private static final int MOVE = 1;
+    private static final int SOLUTION = 2;
+    private static final String[] ENDPOINTS = {"puzzle", "move", "solution"};
+
+    private final HttpClient http;
+    private final String url;
+    private final String mode;
+    private final String difficulty;
+    private final int games;
+    private final int moves;
+    private final AtomicLong errors = new AtomicLong();
+
+    ServerLoadTest(String url, String mode, String difficulty, int games, int moves) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.url = url;
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.games = games;
+        this.moves = moves;
+    }
+
+    // Request latencies of one client, in nanoseconds, by endpoint
+    private static final class Latencies {
+        final long[][] nanos = new long[ENDPOINTS.length][];
+        final int[] counts = new int[ENDPOINTS.length];
+
+        Latencies(int games, int moves) {
+            nanos[PUZZLE] = new long[games];
+            nanos[MOVE] = new long[games * moves];
+            nanos[SOLUTION] = new long[games];
+        }
+
+        void add(int endpoint, long value) {
+            nanos[endpoint][counts[endpoint]++] = value;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        String storePath = null;
+        int clients = 2000;
+        int games = 5;
+        int moves = 5;
+        String mode = "regular";
+        String difficulty = "easy";
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--url":
+                    url = BatchGenerator.require(args[i], value);
+                    break;
+                case "--store":
+                    storePath = BatchGenerator.require(args[i], value);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--games":
+                    games = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--moves":
+                    moves = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--mode":
+                    mode = BatchGenerator.require(args[i], value).toLowerCase(Locale.ROOT);
+                    break;
+                case "--difficulty":
+                    difficulty = BatchGenerator.require(args[i], value).toLowerCase(Locale.ROOT);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+
+        PuzzleServer server = null;
+        PuzzlePool pool = null;
+        if (url == null) {
+            pool = PuzzlePool.fromSystemProperties();
+            pool.prefill();
+            server = new PuzzleServer(new InetSocketAddress("127.0.0.1", 0), pool,
+                    storePath == null ? null : PuzzleStore.open(Paths.get(storePath)), 600_000);
+            server.start();
+            url = "http://127.0.0.1:" + server.port();
+        }
+        try {
+            new ServerLoadTest(url, mode, difficulty, games, moves).run(clients);
+        } finally {
+            if (server != null) {
+                server.stop();
+                pool.shutdown();
+            }
+        }
+    }
+
+    void run(int clients) throws Exception {
+        ExecutorService executor = ThreadPools.perTaskExecutor("load-client");
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Latencies>> results = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            long seed = client;
+            results.add(executor.submit(() -> {
+                ready.countDown();
+                go.await();
+                return play(new Random(seed));
+            }));
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+
+        List<Latencies> all = new ArrayList<>(clients);
+        for (Future<Latencies> result : results) {
+            all.add(result.get());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        long requests = 0;
+        System.out.printf("%d clients, %d games each, %s %s, against %s%n", clients, games, mode, difficulty, url);
+        for (int endpoint = 0; endpoint < ENDPOINTS.length; endpoint++) {
+            long[] merged = merge(all, endpoint);
+            requests += merged.length;
+            if (merged.length == 0) {
+                continue;
+            }
+            Arrays.sort(merged);
+            System.out.printf("%-9s %8d requests  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n", ENDPOINTS[endpoint],
+                    merged.length, percentile(merged, 50) / 1e6, percentile(merged, 99) / 1e6,
+                    merged[merged.length - 1] / 1e6);
+        }
+        System.out.printf("%d requests in %.2f s (%.0f/s), %d errors%n", requests, seconds, requests / seconds, errors.get());
+    }
+
+    private Latencies play(Random random) throws IOException, InterruptedException {
+        Latencies latencies = new Latencies(games, moves);
+        for (int game = 0; game < games; game++) {
+            String puzzle = get("/puzzle?mode=" + mode + "&difficulty=" + difficulty, latencies, PUZZLE);
+            if (puzzle == null) {
+                continue;
+            }
+            String[] fields = puzzle.split(" ");
+            String id = fields[0];
+            char[] grid = fields[1].toCharArray();
+            int size = (int) Math.round(Math.sqrt(grid.length));
+            for (int move = 0; move < moves; move++) {
+                int cell = random.nextInt(grid.length);
+                if (grid[cell] != '0') {
+                    continue;
+                }
+                int value = 1 + random.nextInt(size);
+                String answer = get("/move?id=" + id + "&cell=" + cell + "&value=" + value, latencies, MOVE);
+                if (answer != null && answer.startsWith("correct")) {
+                    grid[cell] = Board.symbol(value);
+                }
+            }
+            String result = send(HttpRequest.newBuilder(URI.create(url + "/solution?id=" + id))
+                    .POST(HttpRequest.BodyPublishers.ofString(new String(grid))), latencies, SOLUTION);
+            if (result != null && !result.startsWith("incomplete") && !result.equals("solved")) {
+                errors.incrementAndGet();
+            }
+        }
+        return latencies;
+    }
+
+    private String get(String path, Latencies latencies, int endpoint) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(url + path)).GET(), latencies, endpoint);
+    }
+
+    // Body of a 200 response without its newline, or null (counted as an error) otherwise
+    private String send(HttpRequest.Builder request, Latencies latencies, int endpoint)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            return null;
+        }
+        latencies.add(endpoint, System.nanoTime() - start);
+        if (response.statusCode() != 200) {
+            errors.incrementAndGet();
+            return null;
+        }
+        return response.body().trim();
+    }
+
+    private static long[] merge(List<Latencies> all, int endpoint) {
+        int total = 0;
+        for (Latencies latencies : all) {
+            total += latencies.counts[endpoint];
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (Latencies latencies : all) {
+            System.arraycopy(latencies.nanos[endpoint], 0, merged, offset, latencies.counts[endpoint]);
+            offset += latencies.counts[endpoint];
+        }
+        return merged;
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(sorted.length * percent / 100);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,225 @@
+package sudoku;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Games being played by many players at once, such as PuzzleServer's. GameSession keeps
+// a GameState, a journal and three Boards for one player at the GUI; a Session here
+// keeps only what checking moves needs, packed into one long[]: the board, then the
+// solution, then a bit per given cell. Cells take 4 bits on 9x9 boards and 8 on the
+// larger ones, so a 9x9 session is the Session object and 14 longs. The cage index is
+// the puzzle's own and is shared, not copied.
+//
+// A move is a mistake when it differs from the solution, as PuzzleServer reports it;
+// the GUI's conflict counting (GameState) would cost each session a few KB of counts.
+// Each session counts the cells that still differ from the solution, so isSolved()
+// is O(1).
+//
+// Every session is its own lock, so moves on different sessions never wait on each
+// other; looking a session up is a lock-free ConcurrentHashMap read. Sessions not
+// used for idleMillis are dropped by evictIdle(), which startSweeper() runs in the
+// background. A player holding an evicted Session can still finish the move in hand,
+// but get() no longer finds it.
+final class SessionManager implements AutoCloseable {
+    static final class Session {
+        final long id;
+        final Mode mode;
+        final Difficulty difficulty;
+        final CageIndex cageIndex;
+        private final int size;
+        private final int cellCount;
+        private final int shift; // log2 of the bits per cell
+        private final int solutionWord; // Index of the first solution word
+        private final int givenWord; // Index of the first given-bits word
+        private final long[] words;
+        private int remaining; // Cells that differ from the solution
+        private int mistakes;
+        private volatile long lastUsed;
+
+        Session(long id, Puzzle puzzle, long now) {
+            this.id = id;
+            this.mode = puzzle.mode;
+            this.difficulty = puzzle.difficulty;
+            this.cageIndex = puzzle.cageIndex;
+            this.size = puzzle.board.size();
+            this.cellCount = puzzle.board.cellCount();
+            this.shift = size == Board.SIZE ? 2 : 3;
+            int boardWords = (cellCount + (64 >> shift) - 1) >> (6 - shift);
+            this.solutionWord = boardWords;
+            this.givenWord = 2 * boardWords;
+            this.words = new long[givenWord + (cellCount + 63) / 64];
+            for (int cell = 0; cell < cellCount; cell++) {
+                int given = puzzle.board.get(cell);
+                write(0, cell, given);
+                write(solutionWord, cell, puzzle.solution.get(cell));
+                if (given != 0) {
+                    words[givenWord + (cell >> 6)] |= 1L << cell;
+                } else {
+                    remaining++;
+                }
+            }
+            this.lastUsed = now;
+        }
+
+        // Enters value (0 clears) and returns whether it was a mistake. Givens can't be changed.
+        synchronized boolean play(int cell, int value) {
+            if (cell < 0 || cell >= cellCount || value < 0 || value > size) {
+                throw new IllegalArgumentException("Cell " + cell + " or value " + value + " out of range");
+            }
+            if (isGiven(cell)) {
+                throw new IllegalArgumentException("Cell " + cell + " is a given");
+            }
+            int answer = read(solutionWord, cell);
+            int old = read(0, cell);
+            write(0, cell, value);
+            remaining += (old == answer ? 1 : 0) - (value == answer ? 1 : 0);
+            boolean mistake = value != 0 && value != answer;
+            if (mistake) {
+                mistakes++;
+            }
+            return mistake;
+        }
+
+        synchronized int get(int cell) {
+            return read(0, cell);
+        }
+
+        synchronized boolean isSolved() {
+            return remaining == 0;
+        }
+
+        synchronized int mistakes() {
+            return mistakes;
+        }
+
+        // Cells still blank or wrong
+        synchronized int remaining() {
+            return remaining;
+        }
+
+        // Filled cells that differ from the solution
+        synchronized int wrong() {
+            int wrong = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                int value = read(0, cell);
+                if (value != 0 && value != read(solutionWord, cell)) {
+                    wrong++;
+                }
+            }
+            return wrong;
+        }
+
+        synchronized Board board() {
+            Board board = new Board(size);
+            for (int cell = 0; cell < cellCount; cell++) {
+                board.set(cell, read(0, cell));
+            }
+            return board;
+        }
+
+        boolean isGiven(int cell) {
+            return (words[givenWord + (cell >> 6)] & 1L << cell) != 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long lastUsed() {
+            return lastUsed;
+        }
+
+        private int read(int base, int cell) {
+            int bits = 1 << shift;
+            int perWord = 64 >> shift;
+            return (int) (words[base + cell / perWord] >>> (cell % perWord * bits)) & ((1 << bits) - 1);
+        }
+
+        private void write(int base, int cell, int value) {
+            int bits = 1 << shift;
+            int perWord = 64 >> shift;
+            int offset = cell % perWord * bits;
+            int word = base + cell / perWord;
+            words[word] = words[word] & ~(((1L << bits) - 1) << offset) | (long) value << offset;
+        }
+    }
+
+    private final Map<Long, Session> sessions;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long idleMillis;
+    private ScheduledExecutorService sweeper;
+
+    SessionManager(long idleMillis) {
+        this(idleMillis, 1024);
+    }
+
+    SessionManager(long idleMillis, int expectedSessions) {
+        this.idleMillis = idleMillis;
+        this.sessions = new ConcurrentHashMap<>(expectedSessions);
+    }
+
+    Session start(Puzzle puzzle) {
+        Session session = new Session(nextId.getAndIncrement(), puzzle, System.currentTimeMillis());
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    // The session with this id, marked as just used, or null if it ended or was evicted
+    Session get(long id) {
+        Session session = sessions.get(id);
+        if (session != null) {
+            session.lastUsed = System.currentTimeMillis();
+        }
+        return session;
+    }
+
+    boolean end(long id) {
+        return sessions.remove(id) != null;
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    long idleMillis() {
+        return idleMillis;
+    }
+
+    // Drops every session not used in the last idleMillis; returns how many went
+    int evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int evicted = 0;
+        for (Session session : sessions.values()) {
+            if (session.lastUsed < cutoff && sessions.remove(session.id, session)) {
+                evicted++;
+            }
+        }
+        Metrics.SESSIONS_EVICTED.add(evicted);
+        return evicted;
+    }
+
+    // Runs evictIdle() every periodMillis on a daemon thread until close()
+    synchronized void startSweeper(long periodMillis) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+}
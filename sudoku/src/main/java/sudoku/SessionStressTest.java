@@ -0,0 +1,237 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Stress test and memory measurement for SessionManager:
+//
+//   java -cp sudoku.jar sudoku.SessionStressTest [--sessions 100000] [--threads 8]
+//       [--seconds 10] [--mode killer] [--store pack.sdk]
+//
+// 1. Memory: heap used per session, after a full GC, for --sessions sessions and, for
+//    comparison, for the same number of GUI GameSessions (capped at 20000).
+// 2. Moves: --threads threads play random moves (clears included) on random sessions
+//    for --seconds; every 16th move goes to session 0 so some moves do contend. The
+//    mistakes each session reports must match what the players counted, and its
+//    remaining cells must match the board.
+// 3. Every session of the first 1000 is solved from several threads at once and must
+//    report solved.
+// 4. Eviction: idle sessions go, sessions touched since stay, and the sweeper empties
+//    the manager on its own.
+// Sessions reuse a few puzzles (from --store or generated); each copies what it needs.
+// Exits with status 1 on the first failed check.
+final class SessionStressTest {
+    private static final int PUZZLES = 16;
+
+    public static void main(String[] args) throws Exception {
+        int count = 100_000;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int seconds = 10;
+        Mode mode = Mode.REGULAR;
+        String storePath = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--sessions":
+                    count = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(BatchGenerator.require(args[i], value));
+                    break;
+                case "--mode":
+                    mode = Mode.valueOf(BatchGenerator.require(args[i], value).toUpperCase(Locale.ROOT));
+                    break;
+                case "--store":
+                    storePath = BatchGenerator.require(args[i], value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+
+        Puzzle[] puzzles = puzzles(mode, storePath);
+        SessionManager manager = new SessionManager(60_000, count);
+        long[] ids = new long[count];
+
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            ids[i] = manager.start(puzzles[i % PUZZLES]).id;
+        }
+        long after = usedHeap();
+        System.out.printf("%d sessions: %.0f bytes each (map entry included)%n", count,
+                (double) (after - before) / count);
+        measureGameSessions(puzzles, Math.min(count, 20_000));
+
+        playRandomMoves(manager, ids, puzzles, threads, seconds);
+        solveInParallel(manager, ids, puzzles, threads, Math.min(count, 1000));
+        checkEviction(puzzles);
+        System.out.println("All checks passed");
+    }
+
+    private static Puzzle[] puzzles(Mode mode, String storePath) throws IOException {
+        Puzzle[] puzzles = new Puzzle[PUZZLES];
+        PuzzleStore store = storePath == null ? null : PuzzleStore.open(Paths.get(storePath));
+        PuzzleGenerator generator = new PuzzleGenerator(new Random(1));
+        Random random = new Random(1);
+        for (int i = 0; i < PUZZLES; i++) {
+            Difficulty diff = Difficulty.values()[i % Difficulty.values().length];
+            Puzzle puzzle = store == null ? null : store.random(mode, diff, random);
+            puzzles[i] = puzzle != null ? puzzle : generator.generate(mode, diff);
+        }
+        return puzzles;
+    }
+
+    private static void measureGameSessions(Puzzle[] puzzles, int count) {
+        GameSession[] sessions = new GameSession[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            Puzzle puzzle = puzzles[i % PUZZLES];
+            sessions[i] = new GameSession(puzzle.mode, puzzle.difficulty, puzzle.board.copy(),
+                    puzzle.solution, puzzle.cageIndex);
+        }
+        long after = usedHeap();
+        System.out.printf("%d GameSessions for comparison: %.0f bytes each%n", count,
+                (double) (after - before) / count);
+        if (sessions[count - 1] == null) {
+            throw new AssertionError(); // Keeps the sessions reachable until measured
+        }
+    }
+
+    private static void playRandomMoves(SessionManager manager, long[] ids, Puzzle[] puzzles,
+                                        int threads, int seconds) throws Exception {
+        AtomicIntegerArray expectedMistakes = new AtomicIntegerArray(ids.length);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long moves = 0;
+                while ((moves & 1023) != 0 || System.nanoTime() < deadline) {
+                    int index = (moves & 15) == 0 ? 0 : random.nextInt(ids.length);
+                    SessionManager.Session session = manager.get(ids[index]);
+                    int cell = random.nextInt(session.size() * session.size());
+                    if (session.isGiven(cell)) {
+                        continue;
+                    }
+                    if (session.play(cell, random.nextInt(session.size() + 1))) {
+                        expectedMistakes.incrementAndGet(index);
+                    }
+                    moves++;
+                }
+                return moves;
+            }));
+        }
+        long moves = 0;
+        for (Future<Long> result : results) {
+            moves += result.get();
+        }
+        executor.shutdown();
+        System.out.printf("%d moves in %d s on %d threads (%.0f/s)%n", moves, seconds, threads,
+                (double) moves / seconds);
+
+        for (int i = 0; i < ids.length; i++) {
+            SessionManager.Session session = manager.get(ids[i]);
+            check(session.mistakes() == expectedMistakes.get(i), "mistakes of session " + i);
+            Board board = session.board();
+            Board solution = puzzles[i % PUZZLES].solution;
+            int remaining = 0;
+            for (int cell = 0; cell < board.cellCount(); cell++) {
+                if (board.get(cell) != solution.get(cell)) {
+                    remaining++;
+                }
+            }
+            check(session.remaining() == remaining, "remaining cells of session " + i);
+        }
+        System.out.println("Mistake counts and remaining cells match after the run (session 0: "
+                + manager.get(ids[0]).mistakes() + " mistakes)");
+    }
+
+    private static void solveInParallel(SessionManager manager, long[] ids, Puzzle[] puzzles,
+                                        int threads, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results.add(executor.submit(() -> {
+                // Threads walk the cells from different starting points over the same sessions
+                for (int i = 0; i < count; i++) {
+                    SessionManager.Session session = manager.get(ids[i]);
+                    Board solution = puzzles[i % PUZZLES].solution;
+                    int cells = solution.cellCount();
+                    for (int step = 0; step < cells; step++) {
+                        int cell = (step + offset * cells / threads) % cells;
+                        if (!session.isGiven(cell)) {
+                            session.play(cell, solution.get(cell));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        for (int i = 0; i < count; i++) {
+            check(manager.get(ids[i]).isSolved(), "session " + i + " solved");
+        }
+        System.out.println(count + " sessions solved from " + threads + " threads at once");
+    }
+
+    private static void checkEviction(Puzzle[] puzzles) throws InterruptedException {
+        int count = 10_000;
+        try (SessionManager manager = new SessionManager(200)) {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = manager.start(puzzles[i % PUZZLES]).id;
+            }
+            Thread.sleep(300);
+            for (int i = 0; i < count; i += 2) {
+                manager.get(ids[i]);
+            }
+            int evicted = manager.evictIdle();
+            check(evicted == count / 2 && manager.size() == count / 2, "idle half evicted, got " + evicted);
+            check(manager.get(ids[1]) == null && manager.get(ids[0]) != null, "evicted and kept sessions");
+
+            manager.startSweeper(50);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            check(manager.size() == 0, "sweeper evicted the rest");
+        }
+        System.out.println("Idle sessions evicted, used ones kept, sweeper emptied the manager");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few rounds, as one System.gc() doesn't always settle the heap
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) {
+            System.out.println("FAILED: " + what);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,715 @@
+package sudoku;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+class Cell extends JPanel {
+    JTextField inputField; // For the cell value
+    JTextField pencilField;
+    JLabel cageSumLabel;   // For the cage total
+    int[][] cellNum;
+
+    public Cell() {
+
+        setLayout(new BorderLayout());
+        inputField = new JTextField();
+        inputField.setHorizontalAlignment(SwingConstants.CENTER);
+        inputField.setFont(new Font("Arial", Font.BOLD, 20));
+        add(inputField, BorderLayout.CENTER);
+
+        pencilField = new JTextField();
+        pencilField.setHorizontalAlignment(SwingConstants.CENTER);
+        pencilField.setFont(new Font("Arial", Font.BOLD, 12));
+
+        add(pencilField, BorderLayout.CENTER);
+
+        // Cage total in the top-left corner
+        cageSumLabel = new JLabel();
+        cageSumLabel.setFont(new Font("Arial", Font.BOLD, 12));
+        cageSumLabel.setHorizontalAlignment(SwingConstants.LEFT);
+        cageSumLabel.setVerticalAlignment(SwingConstants.TOP);
+        cageSumLabel.setForeground(Color.black);
+        cageSumLabel.setOpaque(true);
+        cageSumLabel.setBackground(null);
+        cageSumLabel.setBorder(BorderFactory.createEmptyBorder());
+        add(cageSumLabel, BorderLayout.NORTH);
+    }
+}
+
+public class Sudoku extends Component {
+    // Game state variables
+    public Board board; // Current Sudoku board, flat cells (81 for the classic 9x9)
+    public Board solution; // Solved Sudoku board
+    public boolean[][] cageAssigned; // Tracks cells already part of a cage
+    public List<Cage> cages;
+    public CageIndex cageIndex = CageIndex.EMPTY; // Answers every cage query for the current layout
+    public GameState gameState; // Unit and cage occupancy of the game being played
+    public GameSession session; // Moves, undo journal and save file of the game being played
+    public HintEngine hints; // Next logical step and the pencil marks of the game being played
+    // Where the game in progress is saved on exit and every few moves (-Dsudoku.session)
+    final Path sessionPath = Paths.get(System.getProperty("sudoku.session",
+            Paths.get(System.getProperty("user.home"), ".sudoku-session").toString()));
+    static final int SAVE_EVERY = 10; // Moves between automatic saves
+    public int mistakes = 0;
+    public int maxMistakes = 3;
+    public int generationAttempts = 0;
+    public SudokuSolver solver; // Engine behind solveBoard, swappable to compare node counts
+    public PuzzleGenerator generator; // Shares board, solution and cages with this game
+    public PuzzlePool puzzlePool;
+    public PuzzleLoader puzzleLoader; // Generates behind the loading screen when the pool is empty
+    public PuzzleStore puzzleStore; // Optional pack from -Dsudoku.store, tried before the pool
+    Random random = null;
+    public JFrame frame;
+    public BoardView boardView;
+    private JToggleButton pencilButton;
+    public JLabel statusLabel;
+    public Mode mode;
+    public Difficulty difficulty;
+    public int boardSize = Board.SIZE; // Chosen in the menu: 9, 16 or 25
+
+    public Sudoku() {
+        random = new Random();
+        solver = new BitmaskSolver();
+        generator = new PuzzleGenerator(random);
+        generator.solver = solver;
+        // Initialize board and solution arrays
+        board = generator.board;
+        solution = generator.solution;
+        cageAssigned = generator.cageAssigned;
+        cages = generator.cages;
+        // Keep puzzles for every mode and difficulty ready so starting a game doesn't block
+        puzzlePool = PuzzlePool.fromSystemProperties();
+        puzzlePool.prefill();
+        puzzleLoader = PuzzleLoader.fromSystemProperties();
+        puzzleStore = openStore(System.getProperty("sudoku.store"));
+        startMenu();
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        Metrics.start();
+        // Headless pack generation, bulk solving and serving skip the Swing menu entirely
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--solve")) {
+            BulkSolver.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            PuzzleServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        new Sudoku();
+    }
+
+    // A missing or broken pack only costs the instant start, so report it and carry on
+    private static PuzzleStore openStore(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return PuzzleStore.open(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("Could not open puzzle store " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void startMenu() {
+        mistakes = 0;
+        // Create the main frame
+        frame = new JFrame("Sudoku");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(600, 400);
+        frame.setLayout(new BorderLayout());
+
+        // Title at the top
+        JLabel title = new JLabel("Sudoku", SwingConstants.CENTER);
+        title.setFont(new Font("Arial", Font.BOLD, 36));
+        frame.add(title, BorderLayout.NORTH);
+
+        // Main panel for game options
+        JPanel startPanel = new JPanel(new GridLayout(1, 2, 20, 0));
+        startPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        // Board size picker; Killer cages only exist on 9x9 boards
+        JComboBox<String> sizeChoice = new JComboBox<>();
+        for (int size : Board.SUPPORTED_SIZES) {
+            sizeChoice.addItem(size + "x" + size);
+        }
+        for (int i = 0; i < Board.SUPPORTED_SIZES.length; i++) {
+            if (Board.SUPPORTED_SIZES[i] == boardSize) {
+                sizeChoice.setSelectedIndex(i);
+            }
+        }
+        List<JButton> killerButtons = new ArrayList<>();
+        sizeChoice.addActionListener(e -> {
+            boardSize = Board.SUPPORTED_SIZES[sizeChoice.getSelectedIndex()];
+            for (JButton button : killerButtons) {
+                button.setEnabled(boardSize == Board.SIZE);
+            }
+        });
+        JPanel sizePanel = new JPanel();
+        sizePanel.add(new JLabel("Board size:"));
+        sizePanel.add(sizeChoice);
+        frame.add(sizePanel, BorderLayout.SOUTH);
+
+        // Create panels for Regular Sudoku and Killer Sudoku
+        for (String mode : new String[]{"Regular", "Killer"}) {
+            JPanel modePanel = new JPanel(new BorderLayout());
+            modePanel.setBorder(BorderFactory.createTitledBorder(mode + " Sudoku"));
+
+            // Buttons for difficulty levels
+            JPanel buttonPanel = new JPanel(new GridLayout(4, 1, 10, 10));
+            for (String difficulty : new String[]{"Easy", "Medium", "Hard", "Extreme"}) {
+                String actionCommand = mode + "-" + difficulty; // Unique identifier
+                JButton button = new JButton(difficulty);
+                button.setActionCommand(actionCommand);
+                button.addActionListener(new ActionListener() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        gameSelectInput(e.getActionCommand());
+                    }
+                });
+                if (mode.equals("Killer")) {
+                    button.setEnabled(boardSize == Board.SIZE);
+                    killerButtons.add(button);
+                }
+                buttonPanel.add(button);
+            }
+            modePanel.add(buttonPanel, BorderLayout.CENTER);
+            startPanel.add(modePanel);
+        }
+        frame.add(startPanel, BorderLayout.CENTER);
+        if (Files.exists(sessionPath)) {
+            JButton resumeButton = new JButton("Resume saved game");
+            resumeButton.addActionListener(e -> {
+                frame.dispose();
+                resumeGame();
+            });
+            sizePanel.add(resumeButton);
+        }
+        frame.setVisible(true);
+    }
+
+    // Picks up the game saved in sessionPath, journal and all
+    public void resumeGame() {
+        try {
+            session = GameSession.read(sessionPath);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Could not resume the saved game: " + e.getMessage(),
+                    "Sudoku", JOptionPane.ERROR_MESSAGE);
+            deleteSession();
+            startMenu();
+            return;
+        }
+        mode = session.mode;
+        difficulty = session.difficulty;
+        boardSize = session.board.size();
+        board = session.board;
+        solution = session.solution;
+        cages.clear();
+        if (session.mode == Mode.KILLER) {
+            cages.addAll(session.cages());
+        }
+        cageIndex = session.cageIndex;
+        mistakes = session.mistakes();
+        sudokuBoardGUI(mode);
+        for (int cell = 0; cell < board.cellCount(); cell++) {
+            if (!session.isGiven(cell) && (board.get(cell) != 0 || session.isMistake(cell))) {
+                boardView.showEntered(cell / board.size(), cell % board.size(), session.isMistake(cell));
+            }
+        }
+    }
+
+    // Writes the game in progress so it can be resumed; a failed save only costs the resume
+    void saveSession() {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.save(sessionPath);
+        } catch (IOException e) {
+            System.err.println("Could not save the game to " + sessionPath + ": " + e.getMessage());
+        }
+    }
+
+    // The game is over one way or the other, so there is nothing left to resume
+    void deleteSession() {
+        session = null;
+        try {
+            Files.deleteIfExists(sessionPath);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + sessionPath + ": " + e.getMessage());
+        }
+    }
+
+    public void undo() {
+        if (session == null) {
+            return;
+        }
+        int cell = session.undo();
+        if (cell != -1) {
+            hints.sync(board);
+            boardView.highlight();
+            boardView.showEntered(cell / board.size(), cell % board.size(), session.isMistake(cell));
+        }
+    }
+
+    public void redo() {
+        if (session == null) {
+            return;
+        }
+        int cell = session.redo();
+        if (cell != -1) {
+            hints.sync(board);
+            boardView.highlight();
+            boardView.showEntered(cell / board.size(), cell % board.size(), session.isMistake(cell));
+            if (isBoardSolved()) {
+                showWin();
+            }
+        }
+    }
+
+    public void sudokuBoardGUI(Mode mode) {
+        long start = Metrics.startTimer();
+        frame = new JFrame("Sudoku Board");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        // Big boards need more room per cell than the classic 9x9 window gives
+        int frameWidth = Math.max(650, board.size() * 40);
+        frame.setSize(frameWidth, frameWidth * 625 / 650);
+        frame.setLayout(new BorderLayout());
+        frame.getContentPane().setBackground( Color.GRAY );
+        frame.setBackground(Color.DARK_GRAY);
+
+        // Colour cages so that neighbours never match
+        Color[] cageColors = generateCageColors();
+
+        // A resumed game brings its own session; a new one starts from the givens on the board
+        if (session == null) {
+            session = new GameSession(mode, difficulty, board, solution, cageIndex);
+        }
+        gameState = session.state;
+        hints = new HintEngine(board.size(), cageIndex);
+        hints.sync(board);
+
+        // One painted component for the whole grid, forwarding digits typed into a cell
+        boardView = new BoardView(board, cageIndex, cageColors, mode, this::handlePlayerInput);
+
+        // Add a button panel
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setLayout(new FlowLayout());
+        buttonPanel.setBackground(Color.DARK_GRAY);
+
+        pencilButton = new JToggleButton("Pencil marks");
+        pencilButton.setFocusable(false); // Keep the keyboard on the board
+        pencilButton.addActionListener(e -> boardView.setPencilMarks(pencilButton.isSelected() ? hints::candidates : null));
+        buttonPanel.add(pencilButton);
+
+        JButton hintButton = new JButton("Hint");
+        hintButton.setFocusable(false);
+        hintButton.addActionListener(e -> showHint());
+        buttonPanel.add(hintButton);
+
+        JButton undoButton = new JButton("Undo");
+        undoButton.setFocusable(false);
+        undoButton.addActionListener(e -> undo());
+        buttonPanel.add(undoButton);
+        JButton redoButton = new JButton("Redo");
+        redoButton.setFocusable(false);
+        redoButton.addActionListener(e -> redo());
+        buttonPanel.add(redoButton);
+        // Ctrl+Z / Ctrl+Y anywhere in the window
+        JRootPane root = frame.getRootPane();
+        int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcut), "undo");
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, shortcut), "redo");
+        root.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undo();
+            }
+        });
+        root.getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                redo();
+            }
+        });
+
+        // Closing the window keeps the game for next time
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveSession();
+            }
+        });
+
+        // Add components to the frame
+        frame.add(buttonPanel, BorderLayout.SOUTH);
+        frame.add(boardView, BorderLayout.CENTER);
+
+        // Add a status label at the top
+        statusLabel = new JLabel("Mistakes: " + mistakes + "/" + maxMistakes, SwingConstants.CENTER);
+        frame.add(statusLabel, BorderLayout.NORTH);
+
+        frame.setFocusable(true);
+        frame.setVisible(true);
+        boardView.requestFocusInWindow();
+        Metrics.GUI_BUILD_TIME.recordSince(start);
+    }
+
+    public boolean isTopLeftOfCage(int row, int col, int cageId) {
+        return cageIndex.anchor(cageId) == row * 9 + col;
+    }
+
+    public void handlePlayerInput(int row, int col, int numInput) {
+        // Validate input (optional): Ensure only numbers 1 to the board size are allowed
+        if (numInput < 1 || numInput > board.size()) {
+            return; // Ignore invalid input
+        }
+
+        // Check if the input creates a conflict (mistake detection), then record the move
+        boolean mistake = isMistake(row, col, numInput);
+        session.play(row * board.size() + col, numInput, mistake);
+        hints.sync(board);
+        boardView.highlight();
+        if (session.moves() % SAVE_EVERY == 0) {
+            saveSession();
+        }
+
+        if (mistake) {
+            // If there's a mistake, mark it in red
+            boardView.setMistake(row, col, true);
+            // Increase the mistake count
+            mistakes = session.mistakes();
+
+            // Optionally, update the status label with the mistake count
+            statusLabel.setText("Mistakes: " + mistakes + "/" + maxMistakes);
+
+            // If the number of mistakes exceeds the maximum allowed, alert the player
+            if (mistakes >= maxMistakes) {
+                deleteSession();
+                JOptionPane.showMessageDialog(frame, "You have made too many mistakes!", "Game Over", JOptionPane.ERROR_MESSAGE);
+
+                // Lock the board: Disable all input
+                boardView.setEditable(false);
+
+                JButton returnToMainMenuButton = new JButton("Return to Main Menu");
+                returnToMainMenuButton.addActionListener(e -> {
+                    frame.dispose(); // Close the current game window
+                    startMenu(); // Show the main menu
+                });
+
+                JPanel buttonPanel = new JPanel();
+                buttonPanel.add(returnToMainMenuButton);
+                frame.add(buttonPanel, BorderLayout.SOUTH);
+                frame.revalidate();
+
+            }
+        } else {
+            // If no mistake, keep the number in black (or reset color if it was a mistake before)
+            boardView.setMistake(row, col, false);
+            boardView.lockCell(row, col);
+        }
+
+        // After valid input, check if the board is solved
+        if (isBoardSolved()) {
+            showWin();
+        }
+    }
+
+    // Points at the next logical step and names it in the status line. A wrong entry is
+    // pointed out first, since nothing deduced past it can be trusted. Hints that only
+    // remove candidates turn the pencil marks on so the player can see what went.
+    public void showHint() {
+        if (session == null) {
+            return; // The game is over
+        }
+        int size = board.size();
+        String text = null;
+        for (int cell = 0; cell < board.cellCount() && text == null; cell++) {
+            if (board.get(cell) != 0 && board.get(cell) != solution.get(cell)) {
+                boardView.highlight(cell);
+                text = "r" + (cell / size + 1) + "c" + (cell % size + 1) + " doesn't fit the solution";
+            }
+        }
+        if (text == null) {
+            HintEngine.Hint hint = hints.next(board);
+            if (hint == null) {
+                boardView.highlight();
+                text = "no logical step found from here";
+            } else if (hint.cell != -1) {
+                boardView.highlight(hint.cell);
+                text = hint.toString();
+            } else {
+                boardView.highlight(hint.cells);
+                pencilButton.setSelected(true);
+                boardView.setPencilMarks(hints::candidates);
+                text = hint.toString();
+            }
+        }
+        statusLabel.setText("Mistakes: " + mistakes + "/" + maxMistakes + "   Hint: " + text);
+    }
+
+    private void showWin() {
+        deleteSession();
+        // Show win message and give the player the option to return to the main menu
+        int choice = JOptionPane.showConfirmDialog(
+                frame,
+                "Congratulations! You have solved the puzzle! Return to main menu?",
+                "You Win!",
+                JOptionPane.YES_NO_OPTION
+        );
+
+        boardView.setEditable(false);
+
+        JButton returnToMainMenuButton = new JButton("Return to Main Menu");
+        returnToMainMenuButton.addActionListener(e -> {
+            frame.dispose();
+            startMenu();
+        });
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(returnToMainMenuButton);
+        frame.add(buttonPanel, BorderLayout.SOUTH);
+        frame.revalidate();
+    }
+
+    public boolean isMistake(int row, int col, int numInput) {
+        // Duplicate in the row, column or box, or a cage that no longer adds up
+        return gameState.isConflict(row, col, numInput);
+    }
+
+    public void gameSelectInput(String actionCommand) {
+        frame.dispose(); // Close the menu window
+
+        // Use switch to handle the action command
+        switch (actionCommand) {
+            case "Regular-Easy":
+                startGame(Mode.REGULAR, Difficulty.EASY);
+                break;
+            case "Regular-Medium":
+                startGame(Mode.REGULAR, Difficulty.MEDIUM);
+                break;
+            case "Regular-Hard":
+                startGame(Mode.REGULAR, Difficulty.HARD);
+                break;
+            case "Regular-Extreme":
+                startGame(Mode.REGULAR, Difficulty.EXTREME);
+                break;
+            case "Killer-Easy":
+                startGame(Mode.KILLER, Difficulty.EASY);
+                break;
+            case "Killer-Medium":
+                startGame(Mode.KILLER, Difficulty.MEDIUM);
+                break;
+            case "Killer-Hard":
+                startGame(Mode.KILLER, Difficulty.HARD);
+                break;
+            case "Killer-Extreme":
+                startGame(Mode.KILLER, Difficulty.EXTREME);
+                break;
+            default:
+                System.out.println("Invalid selection!");
+                break;
+        }
+
+    }
+
+    // Starts right away with a pooled puzzle, otherwise generates one behind a loading screen
+    public void startGame(Mode mode, Difficulty diff) {
+        this.mode = mode;
+        this.difficulty = diff;
+        Puzzle ready = null;
+        if (puzzleStore != null && boardSize == Board.SIZE) {
+            ready = puzzleStore.random(mode, diff, random);
+        }
+        if (ready == null) {
+            ready = puzzlePool.poll(boardSize, mode, diff);
+        }
+        if (ready != null) {
+            loadPuzzle(ready);
+            sudokuBoardGUI(mode);
+            return;
+        }
+        loadingScreen(mode, diff);
+    }
+
+    // Generation runs on a background thread; this window only shows its progress
+    // (sampled by a Swing timer, so the generator never waits on the event thread)
+    // and lets the player give up and go back to the menu.
+    public void loadingScreen(Mode mode, Difficulty diff) {
+        frame = new JFrame("Sudoku");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(420, 180);
+        frame.setLayout(new BorderLayout());
+
+        JLabel stageLabel = new JLabel("Generating " + boardSize + "x" + boardSize + " puzzle...", SwingConstants.CENTER);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        JButton cancelButton = new JButton("Cancel");
+        JPanel center = new JPanel(new GridLayout(2, 1, 0, 10));
+        center.setBorder(BorderFactory.createEmptyBorder(20, 20, 10, 20));
+        center.add(stageLabel);
+        center.add(progressBar);
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(cancelButton);
+        frame.add(center, BorderLayout.CENTER);
+        frame.add(buttonPanel, BorderLayout.SOUTH);
+        frame.setVisible(true);
+
+        // Latest progress report, written by the generator and read by the timer
+        Object[] latest = new Object[3];
+        CompletableFuture<Puzzle> loading = puzzleLoader.load(boardSize, mode, diff, (stage, done, total) -> {
+            synchronized (latest) {
+                latest[0] = stage;
+                latest[1] = done;
+                latest[2] = total;
+            }
+        });
+        javax.swing.Timer progressTimer = new javax.swing.Timer(100, e -> {
+            synchronized (latest) {
+                if (latest[0] == null) {
+                    return;
+                }
+                int done = (Integer) latest[1];
+                int total = (Integer) latest[2];
+                stageLabel.setText(latest[0] + (total > 0 ? "" : done > 0 ? " (" + done + ")" : ""));
+                progressBar.setIndeterminate(total == 0);
+                if (total > 0) {
+                    progressBar.setMaximum(total);
+                    progressBar.setValue(done);
+                }
+            }
+        });
+        progressTimer.start();
+
+        JFrame loadingFrame = frame;
+        cancelButton.addActionListener(e -> loading.cancel(true));
+        loading.whenComplete((puzzle, error) -> SwingUtilities.invokeLater(() -> {
+            progressTimer.stop();
+            loadingFrame.dispose();
+            if (puzzle != null) {
+                loadPuzzle(puzzle);
+                sudokuBoardGUI(mode);
+                return;
+            }
+            if (!loading.isCancelled()) {
+                JOptionPane.showMessageDialog(null, "Could not generate a puzzle: " + error.getMessage(),
+                        "Sudoku", JOptionPane.ERROR_MESSAGE);
+            }
+            startMenu();
+        }));
+    }
+
+    public boolean isBoardSolved() {
+        return gameState.isSolved();
+    }
+
+    public boolean isNumberInRow(int[][] board, int number, int row) {
+        return BacktrackingSolver.isNumberInRow(board, number, row);
+    }
+
+    public boolean isNumberInColumn(int[][] board, int number, int column) {
+        return BacktrackingSolver.isNumberInColumn(board, number, column);
+    }
+
+    public boolean isNumberInBox(int[][] board, int number, int row, int column) {
+        return BacktrackingSolver.isNumberInBox(board, number, row, column);
+    }
+
+    public boolean isValidPlacement(int[][] board, int number, int row, int column) {
+        return BacktrackingSolver.isValidPlacement(board, number, row, column);
+    }
+
+    public boolean solveBoard(int[][] board) {
+        // Count the placements this solve tried on top of any earlier ones
+        long nodesBefore = solver.getNodeCount();
+        long start = Metrics.startTimer();
+        boolean solved = solver.solve(board);
+        Metrics.SOLVER_TIME.recordSince(start);
+        Metrics.SOLVER_NODES.add(solver.getNodeCount() - nodesBefore);
+        generationAttempts += (int) (solver.getNodeCount() - nodesBefore);
+        return solved;
+    }
+
+    public int countSolutions(int[][] board, int limit) {
+        return solver.countSolutions(board, limit);
+    }
+
+    void generateBoard(Mode mode, Difficulty diff) {
+        generator.generateBoard(mode, diff);
+        generationAttempts = generator.generationAttempts;
+        cageIndex = mode == Mode.KILLER ? generator.cageIndex : CageIndex.EMPTY;
+    }
+
+    // Copies a generated puzzle into this game's board, solution and cages.
+    // A puzzle of another size gets fresh boards instead.
+    public void loadPuzzle(Puzzle puzzle) {
+        if (board.size() != puzzle.board.size()) {
+            board = puzzle.board.copy();
+            solution = puzzle.solution.copy();
+        } else {
+            board.copyFrom(puzzle.board);
+            solution.copyFrom(puzzle.solution);
+        }
+        cages.clear();
+        cages.addAll(puzzle.cages);
+        cageIndex = puzzle.cageIndex;
+        session = null; // A new puzzle gets a new session
+    }
+
+    public int removeCellsForDifficulty(int cellsToRemove, Board board) {
+        return generator.removeCellsForDifficulty(cellsToRemove, board);
+    }
+
+    public int getCageSum(int cageId) {
+        // Check if the cageId is valid
+        if (cageId < 0 || cageId >= cageIndex.cageCount()) {
+            return -1; // Invalid cageId
+        }
+        return cageIndex.sum(cageId);
+    }
+
+    public void generateCages() {
+        generator.generateCages();
+        cageIndex = generator.cageIndex;
+    }
+
+    public void assignCellToCage(int row, int col, Cage cage) {
+        generator.assignCellToCage(row, col, cage);
+    }
+
+    public int getCageId(int row, int col) {
+        return cageIndex.cageOf(row * 9 + col);
+    }
+
+    // Cage id -> fill colour; neighbouring cages always differ (see CagePalette)
+    public Color[] generateCageColors() {
+        return CagePalette.colorsFor(cageIndex);
+    }
+
+    public List<int[]> getUnassignedNeighbors(int row, int col) {
+        return generator.getUnassignedNeighbors(row, col);
+    }
+
+}
@@ -0,0 +1,30 @@
+package sudoku;
+
+// Common entry point for the solving engines, so generateBoard and any other
+// caller can swap one implementation for another
+interface SudokuSolver {
+    // Fills the empty (0) cells of a 9x9 board in place.
+    // Returns false, leaving the board untouched, when there is no solution.
+    boolean solve(int[][] board);
+
+    // Counts the solutions of a 9x9 board without modifying it, stopping once
+    // limit is reached. A limit of 2 is enough to check that a puzzle is unique.
+    int countSolutions(int[][] board, int limit);
+
+    // Board versions of the above; engines that work on flat cells override these
+    default boolean solve(Board board) {
+        int[][] grid = board.toGrid();
+        if (!solve(grid)) {
+            return false;
+        }
+        board.copyFrom(Board.fromGrid(grid));
+        return true;
+    }
+
+    default int countSolutions(Board board, int limit) {
+        return countSolutions(board.toGrid(), limit);
+    }
+
+    // Number of placements tried since this solver was created
+    long getNodeCount();
+}
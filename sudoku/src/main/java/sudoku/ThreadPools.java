@@ -0,0 +1,26 @@
+package sudoku;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for short blocking tasks. On a JDK with virtual threads every task gets
+// its own virtual thread; older JDKs get a cached pool of daemon platform threads.
+// The lookup is reflective so the code still builds for Java 17.
+final class ThreadPools {
+    private ThreadPools() {
+    }
+
+    static ExecutorService perTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}